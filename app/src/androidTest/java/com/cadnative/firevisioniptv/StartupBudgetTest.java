@@ -0,0 +1,43 @@
+package com.cadnative.firevisioniptv;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Presupuesto del arranque en un dispositivo: desde que inicia el proceso hasta que la primera
+ * fila tiene contenido no puede pasar más de StartupTrace.FULLY_DRAWN_BUDGET_MS.
+ * Se ejecuta con ./gradlew connectedAndroidTest; el proceso lo inicia la instrumentación, así que
+ * la medición incluye también su arranque y es un poco más pesimista que la de un usuario.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBudgetTest {
+
+    // Cuánto esperar la primera fila antes de dar el arranque por fallido
+    private static final long TIMEOUT_MS = 10 * StartupTrace.FULLY_DRAWN_BUDGET_MS;
+    private static final long POLL_MS = 50;
+
+    @Test
+    public void firstRowsAreDrawnWithinBudget() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            long deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS;
+            long fullyDrawn;
+            while ((fullyDrawn = StartupTrace.getFullyDrawnMs()) < 0
+                    && SystemClock.elapsedRealtime() < deadline) {
+                SystemClock.sleep(POLL_MS);
+            }
+
+            assertTrue("First rows not drawn after " + TIMEOUT_MS + "ms", fullyDrawn >= 0);
+            assertFalse("Fully drawn after " + fullyDrawn + "ms, budget is "
+                            + StartupTrace.FULLY_DRAWN_BUDGET_MS + "ms",
+                    StartupTrace.isOverBudget(fullyDrawn));
+        }
+    }
+}
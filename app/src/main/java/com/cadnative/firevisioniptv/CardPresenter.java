@@ -3,7 +3,7 @@ package com.cadnative.firevisioniptv;
 // Importación de clases necesarias
 import static java.security.AccessController.getContext;
 
-import android.graphics.Color;
+import android.content.Context;
 import android.graphics.drawable.Drawable;
 
 import androidx.leanback.widget.ImageCardView; // Vista especializada para tarjetas en Android TV
@@ -11,30 +11,76 @@ import androidx.leanback.widget.Presenter;     // Clase base para crear y vincul
 import androidx.core.content.ContextCompat;
 
 import android.graphics.drawable.GradientDrawable;
-import android.util.Log;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import com.bumptech.glide.Glide; // Librería para cargar imágenes desde URLs
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.request.RequestOptions;
 
 /*
  * CardPresenter genera vistas tipo tarjeta y las vincula con datos (Movie).
  * Es común en aplicaciones Android TV para mostrar contenidos visuales.
+ *
+ * Todo lo que no depende del canal (colores, imagen por defecto, fondo, tamaño y escalado de la
+ * imagen) se prepara al crear la tarjeta; al vincular solo se cambian los textos y se pide el logo,
+ * porque al desplazarse por una fila larga se vinculan decenas de tarjetas por segundo.
+ * Los textos y el modelo del logo salen de Movie.getCard: se decodifican de la tabla la primera
+ * vez que se muestra cada canal y después se reutilizan (más la petición de Glide, que es suya).
  */
 public class CardPresenter extends Presenter {
     private static final String TAG = "CardPresenter";
 
     // Dimensiones de las tarjetas
-    private static final int CARD_WIDTH = 313;
-    private static final int CARD_HEIGHT = 176;
+    static final int CARD_WIDTH = 313;
+    static final int CARD_HEIGHT = 176;
+
+    // Espaciado dentro de la imagen
+    private static final int IMAGE_PADDING = 20;
+
+    /**
+     * Opciones de las imágenes de tarjeta. El logo se decodifica ya reducido al tamaño de la
+     * tarjeta (sin transformación posterior, la ImageView lo centra con FIT_CENTER), lo que
+     * permite usar bitmaps de hardware, y ese resultado también se guarda en disco: volver a
+     * pasar por una fila no decodifica de nuevo el PNG original de 512px.
+     */
+    static final RequestOptions CARD_IMAGE_OPTIONS = new RequestOptions()
+            .override(CARD_WIDTH, CARD_HEIGHT)
+            .downsample(DownsampleStrategy.FIT_CENTER)
+            .dontTransform()
+            .set(Downsampler.ALLOW_HARDWARE_CONFIG, true)
+            .diskCacheStrategy(DiskCacheStrategy.ALL);
 
     // Colores de fondo para la tarjeta seleccionada y no seleccionada
     private static int sSelectedBackgroundColor;
     private static int sDefaultBackgroundColor;
 
+    // Colores del gradiente de fondo de la imagen
+    private int[] mImageBackgroundColors;
+
     // Imagen por defecto para las tarjetas sin imagen
     private Drawable mDefaultCardImage;
 
+    // CARD_IMAGE_OPTIONS con la imagen por defecto como error, para no copiar opciones en cada tarjeta
+    private RequestOptions mCardRequestOptions;
+
+    /**
+     * Tarjeta con su RequestManager, que se busca una sola vez al crearla.
+     */
+    static final class CardViewHolder extends Presenter.ViewHolder {
+        final ImageCardView cardView;
+        final RequestManager glide;
+
+        CardViewHolder(ImageCardView cardView) {
+            super(cardView);
+            this.cardView = cardView;
+            this.glide = Glide.with(cardView.getContext());
+        }
+    }
+
     // Cambia el color de fondo dependiendo si la tarjeta está seleccionada
     private static void updateCardBackgroundColor(ImageCardView view, boolean selected) {
         int color = selected ? sSelectedBackgroundColor : sDefaultBackgroundColor;
@@ -42,17 +88,25 @@ public class CardPresenter extends Presenter {
         view.setInfoAreaBackgroundColor(color); // cambia también el fondo de la sección de texto
     }
 
+    // Lee colores e imagen por defecto de los recursos, solo la primera vez
+    private void loadResources(Context context) {
+        if (mDefaultCardImage != null) {
+            return;
+        }
+        sDefaultBackgroundColor = ContextCompat.getColor(context, R.color.default_background);
+        sSelectedBackgroundColor = ContextCompat.getColor(context, R.color.selected_background);
+        mImageBackgroundColors = new int[] {
+                ContextCompat.getColor(context, R.color.card_background_startColor),
+                ContextCompat.getColor(context, R.color.card_background_endColor)
+        };
+        mDefaultCardImage = ContextCompat.getDrawable(context, R.drawable.movie);
+        mCardRequestOptions = new RequestOptions().apply(CARD_IMAGE_OPTIONS).error(mDefaultCardImage);
+    }
+
     // Se llama cuando el sistema necesita crear una nueva tarjeta (ViewHolder)
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent) {
-        Log.d(TAG, "onCreateViewHolder");
-
-        // Obtiene colores desde los recursos
-        sDefaultBackgroundColor = ContextCompat.getColor(parent.getContext(), R.color.default_background);
-        sSelectedBackgroundColor = ContextCompat.getColor(parent.getContext(), R.color.selected_background);
-
-        // Imagen por defecto si no se carga la del Movie
-        mDefaultCardImage = ContextCompat.getDrawable(parent.getContext(), R.drawable.movie);
+        loadResources(parent.getContext());
 
         // Crea la tarjeta personalizada (ImageCardView) y sobreescribe su comportamiento al ser seleccionada
         ImageCardView cardView = new ImageCardView(parent.getContext()) {
@@ -70,56 +124,47 @@ public class CardPresenter extends Presenter {
         // Le da un fondo inicial
         updateCardBackgroundColor(cardView, false);
 
-        return new ViewHolder(cardView); // Devuelve el ViewHolder con esta tarjeta
+        // Imagen de tamaño fijo, centrada y sobre un gradiente (de arriba hacia abajo) propio de la tarjeta
+        cardView.setMainImageDimensions(CARD_WIDTH, CARD_HEIGHT);
+        ImageView imageView = cardView.getMainImageView();
+        imageView.setPadding(IMAGE_PADDING, IMAGE_PADDING, IMAGE_PADDING, IMAGE_PADDING);
+        imageView.setBackground(new GradientDrawable(GradientDrawable.Orientation.TOP_BOTTOM, mImageBackgroundColors));
+        imageView.setScaleType(ImageView.ScaleType.FIT_CENTER);
+
+        return new CardViewHolder(cardView); // Devuelve el ViewHolder con esta tarjeta
     }
 
     // Vincula un objeto Movie con su vista (tarjeta)
     @Override
     public void onBindViewHolder(Presenter.ViewHolder viewHolder, Object item) {
         Movie movie = (Movie) item; // Se castea el objeto recibido
-        ImageCardView cardView = (ImageCardView) viewHolder.view;
-
-        Log.d(TAG, "onBindViewHolder");
-
-        if (movie.getCardImageUrl() != null) {
-            // Configura el texto e imagen de la tarjeta
-            cardView.setTitleText(movie.getTitle());
-            cardView.setContentText(movie.getStudio());
-            cardView.setMainImageDimensions(CARD_WIDTH, CARD_HEIGHT);
-
-            // Espaciado dentro de la imagen
-            cardView.getMainImageView().setPadding(20, 20, 20, 20);
-
-            // Fondo en forma de gradiente (de arriba hacia abajo)
-            GradientDrawable gradientDrawable = new GradientDrawable(
-                    GradientDrawable.Orientation.TOP_BOTTOM,
-                    new int[] {
-                            ContextCompat.getColor(viewHolder.view.getContext(), R.color.card_background_startColor),
-                            ContextCompat.getColor(viewHolder.view.getContext(), R.color.card_background_endColor)
-                    }
-            );
-            cardView.getMainImageView().setBackground(gradientDrawable);
-
-            // Escalado de la imagen
-            cardView.getMainImageView().setScaleType(ImageView.ScaleType.FIT_CENTER);
-
-            // Usa Glide para cargar la imagen desde una URL
-            Glide.with(viewHolder.view.getContext())
-                    .load(movie.getCardImageUrl())     // URL de la imagen
-                    .fitCenter()                        // Ajusta al centro sin recortar
-                    .error(mDefaultCardImage)          // Muestra imagen por defecto si hay error
-                    .into(cardView.getMainImageView()); // Aplica la imagen a la tarjeta
+        CardViewHolder holder = (CardViewHolder) viewHolder;
+
+        // Configura el texto de la tarjeta
+        Movie.Card card = movie.getCard();
+        holder.cardView.setTitleText(card.title);
+        holder.cardView.setContentText(card.studio);
+
+        if (card.logo != null && !FailedImageUrls.isBlocked(card.logo.getUrl())) {
+            // Usa Glide para cargar la imagen del paquete local o de la URL, decodificada al tamaño de la tarjeta
+            holder.glide.load(card.logo)
+                    .apply(mCardRequestOptions)
+                    .listener(FailedImageUrls.<Drawable>listener())
+                    .into(holder.cardView.getMainImageView());
+        } else {
+            // Sin logo, o con un logo que falló hace poco: directamente la imagen por defecto
+            holder.cardView.setMainImage(mDefaultCardImage);
         }
     }
 
     // Se llama cuando la vista ya no está en uso (por ejemplo, al desplazarse fuera de pantalla)
     @Override
     public void onUnbindViewHolder(Presenter.ViewHolder viewHolder) {
-        Log.d(TAG, "onUnbindViewHolder");
-        ImageCardView cardView = (ImageCardView) viewHolder.view;
+        CardViewHolder holder = (CardViewHolder) viewHolder;
 
-        // Libera recursos de imágenes para ahorrar memoria
-        cardView.setBadgeImage(null);
-        cardView.setMainImage(null);
+        // Cancela la carga pendiente y libera recursos de imágenes para ahorrar memoria
+        holder.glide.clear(holder.cardView.getMainImageView());
+        holder.cardView.setBadgeImage(null);
+        holder.cardView.setMainImage(null);
     }
 }
@@ -3,6 +3,9 @@ package com.cadnative.firevisioniptv;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import java.util.List;
+
+import io.realm.RealmList;
 import io.realm.RealmObject;
 
 /**
@@ -20,6 +23,11 @@ public class Channel extends RealmObject implements Parcelable {
     private String channelGroup;    // Grupo o categoría del canal (Ej: Deportes, Noticias)
     private String channelDrmKey;   // Clave DRM para reproducción (si aplica)
     private String channelDrmType;  // Tipo de DRM (Ej: Widevine, AES)
+    private RealmList<String> channelAltUrls; // URLs alternativas del mismo canal (de listas duplicadas); null si no hay
+    private byte[] channelAttributes; // Atributos extendidos sin decodificar (ver M3uAttributes)
+
+    // Solo para la copia guardada en Realm (ver ChannelStore)
+    private int channelPosition;    // Posición en la lista original
 
     /**
      * Constructor vacío requerido por Realm para poder instanciar objetos.
@@ -85,6 +93,46 @@ public class Channel extends RealmObject implements Parcelable {
         this.channelDrmType = channelDrmType;
     }
 
+    /**
+     * URLs alternativas del canal. En un canal sin guardar es null mientras no tenga ninguna,
+     * porque casi ningún canal tiene duplicados y no vale la pena crear una lista vacía por canal.
+     */
+    public RealmList<String> getChannelAltUrls() {
+        return channelAltUrls;
+    }
+
+    /**
+     * Agrega una URL alternativa si no estaba, creando la lista la primera vez.
+     */
+    public void addChannelAltUrl(String url) {
+        if (channelAltUrls == null) {
+            channelAltUrls = new RealmList<>();
+        } else if (channelAltUrls.contains(url)) {
+            return;
+        }
+        channelAltUrls.add(url);
+    }
+
+    public void setChannelAltUrls(RealmList<String> channelAltUrls) {
+        this.channelAltUrls = channelAltUrls;
+    }
+
+    public byte[] getChannelAttributes() {
+        return channelAttributes;
+    }
+
+    public void setChannelAttributes(byte[] channelAttributes) {
+        this.channelAttributes = channelAttributes;
+    }
+
+    public int getChannelPosition() {
+        return channelPosition;
+    }
+
+    public void setChannelPosition(int channelPosition) {
+        this.channelPosition = channelPosition;
+    }
+
     /**
      * Devuelve una representación legible del objeto Channel.
      */
@@ -97,6 +145,7 @@ public class Channel extends RealmObject implements Parcelable {
                 ", channelGroup='" + channelGroup + '\'' +
                 ", channelDrmKey='" + channelDrmKey + '\'' +
                 ", channelDrmType='" + channelDrmType + '\'' +
+                ", channelAltUrls=" + channelAltUrls +
                 '}';
     }
 
@@ -115,6 +164,12 @@ public class Channel extends RealmObject implements Parcelable {
         this.channelGroup = data[3];
         this.channelDrmKey = data[4];
         this.channelDrmType = data[5];
+        List<String> altUrls = in.createStringArrayList();
+        if (altUrls != null && !altUrls.isEmpty()) {
+            this.channelAltUrls = new RealmList<>();
+            this.channelAltUrls.addAll(altUrls);
+        }
+        this.channelAttributes = in.createByteArray();
     }
 
     /**
@@ -142,6 +197,8 @@ public class Channel extends RealmObject implements Parcelable {
                 this.channelDrmKey,
                 this.channelDrmType
         });
+        parcel.writeStringList(this.channelAltUrls);
+        parcel.writeByteArray(this.channelAttributes);
     }
 
     /**
@@ -0,0 +1,36 @@
+package com.cadnative.firevisioniptv;
+
+import androidx.annotation.NonNull;
+
+/*
+ * Modelo de Glide para el logo de una tarjeta. Con un tipo propio, en lugar del String de la URL,
+ * el logo se busca primero en el paquete local (LogoPackModelLoader) y solo si no está se descarga.
+ * Dos logos son iguales si tienen la misma URL, así las tarjetas y la precarga comparten caché.
+ */
+public final class ChannelLogo {
+
+    private final String url;
+
+    public ChannelLogo(@NonNull String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ChannelLogo && url.equals(((ChannelLogo) o).url);
+    }
+
+    @Override
+    public int hashCode() {
+        return url.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
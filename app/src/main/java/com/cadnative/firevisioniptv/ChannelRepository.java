@@ -0,0 +1,266 @@
+package com.cadnative.firevisioniptv;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.cadnative.firevisioniptv.catalog.ChannelTable;
+import com.cadnative.firevisioniptv.catalog.LongIntIndex;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Repositorio único de canales de la app (lo crea FirevisionApplication).
+ * La lista se parsea una sola vez por proceso y se publica como una serie de
+ * instantáneas inmutables y numeradas: cada lote de la carga progresiva y cada
+ * actualización incremental reemplazan la instantánea vigente de forma atómica.
+ * Las pantallas (browse, búsqueda, reproducción) se suscriben y nunca ven una lista a medias.
+ */
+public final class ChannelRepository {
+
+    // Tag para mensajes de log
+    private static final String TAG = "ChannelRepository";
+
+    /**
+     * Recibe cada nueva instantánea en el hilo principal.
+     */
+    public interface Listener {
+        void onSnapshot(Snapshot snapshot);
+    }
+
+    /**
+     * Estado inmutable de la lista en un momento dado.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final ChannelTable table;
+        private final List<Movie> movies;
+        private final boolean complete;
+        private final MovieList.Delta delta;
+
+        // Posición de cada película por id; se arma la primera vez que se busca
+        private volatile LongIntIndex positions;
+
+        Snapshot(long version, ChannelTable table, List<Movie> movies, boolean complete, MovieList.Delta delta) {
+            this.version = version;
+            this.table = table;
+            this.movies = Collections.unmodifiableList(movies);
+            this.complete = complete;
+            this.delta = delta;
+        }
+
+        // Crece en uno con cada instantánea publicada
+        public long getVersion() {
+            return version;
+        }
+
+        public List<Movie> getMovies() {
+            return movies;
+        }
+
+        /**
+         * Tabla de los canales: la película en la posición i es la fila i de la tabla.
+         * Sus índices (por ejemplo, el de categorías) sirven para las filas menores que
+         * getMovies().size(). Es null antes de la primera instantánea.
+         */
+        public ChannelTable getTable() {
+            return table;
+        }
+
+        // true cuando ya terminó la carga inicial
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Cambios respecto de la versión anterior si vienen de una actualización incremental;
+         * null si la versión anterior solo se extendió con películas al final (carga por lotes).
+         */
+        public MovieList.Delta getDelta() {
+            return delta;
+        }
+
+        /**
+         * Posición de la película en esta instantánea, comparando por id, o -1 si no está.
+         */
+        public int indexOf(Movie movie) {
+            return movie == null ? -1 : indexOf(movie.getId());
+        }
+
+        /**
+         * Posición del canal con ese id (ver ChannelIds) en esta instantánea, o -1 si no está.
+         */
+        public int indexOf(long id) {
+            LongIntIndex index = positions;
+            if (index == null) {
+                // Si dos hilos llegan a la vez arman el mismo índice; cualquiera de los dos sirve
+                index = new LongIntIndex(movies.size());
+                for (int i = 0; i < movies.size(); i++) {
+                    index.put(movies.get(i).getId(), i);
+                }
+                positions = index;
+            }
+            int position = index.get(id);
+            return position == LongIntIndex.MISSING ? -1 : position;
+        }
+
+        /**
+         * Película con ese id, o null si no está en esta instantánea.
+         */
+        public Movie findById(long id) {
+            int position = indexOf(id);
+            return position < 0 ? null : movies.get(position);
+        }
+    }
+
+    /**
+     * Películas de la carga inicial, que solo crecen al final. Todas las instantáneas de la carga
+     * comparten el mismo arreglo y cada una ve sus primeros {@code size} elementos, que ya no
+     * cambian; así publicar un lote cuesta lo que el lote y no lo que la lista entera.
+     * Cuando el arreglo se llena se copia a uno más grande (las instantáneas anteriores siguen
+     * con el viejo). Solo se usa desde el hilo principal; las instantáneas se publican con
+     * AtomicReference, que también publica los elementos escritos antes.
+     */
+    private static final class LoadedMovies {
+        private Movie[] mMovies = new Movie[MovieList.BATCH_SIZE];
+        private int mSize;
+
+        // Agrega el lote y devuelve la vista de la lista hasta él
+        List<Movie> append(List<Movie> batch) {
+            if (mSize + batch.size() > mMovies.length) {
+                mMovies = Arrays.copyOf(mMovies, Math.max(mMovies.length * 2, mSize + batch.size()));
+            }
+            for (Movie movie : batch) {
+                mMovies[mSize++] = movie;
+            }
+            return new Prefix(mMovies, mSize);
+        }
+
+        private static final class Prefix extends AbstractList<Movie> implements RandomAccess {
+            private final Movie[] movies;
+            private final int size;
+
+            Prefix(Movie[] movies, int size) {
+                this.movies = movies;
+                this.size = size;
+            }
+
+            @Override
+            public Movie get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+                }
+                return movies[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+    }
+
+    private final Context mContext;
+    private final AtomicReference<Snapshot> mSnapshot =
+            new AtomicReference<>(new Snapshot(0, null, new ArrayList<Movie>(), false, null));
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    // Solo se usan desde el hilo principal
+    private boolean mLoadStarted;
+    private boolean mRefreshing;
+    private LoadedMovies mLoaded = new LoadedMovies();  // Solo durante la carga inicial
+
+    ChannelRepository(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Instantánea vigente; se puede leer desde cualquier hilo.
+     */
+    public Snapshot getSnapshot() {
+        return mSnapshot.get();
+    }
+
+    /**
+     * Registra el listener y, si ya hay canales, le entrega de inmediato la instantánea vigente.
+     * Debe llamarse desde el hilo principal.
+     */
+    public void subscribe(Listener listener) {
+        mListeners.add(listener);
+        Snapshot snapshot = mSnapshot.get();
+        if (snapshot.getVersion() > 0) {
+            listener.onSnapshot(snapshot);
+        }
+    }
+
+    public void unsubscribe(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Inicia la carga de la lista si todavía no se inició en este proceso.
+     * Las llamadas siguientes no hacen nada, así la lista se parsea una sola vez.
+     */
+    public void load() {
+        if (mLoadStarted) {
+            return;
+        }
+        mLoadStarted = true;
+
+        MovieList.setupMoviesAsync(mContext, new MovieList.MoviesCallback() {
+            @Override
+            public void onMoviesLoaded(ChannelTable table, List<Movie> batch) {
+                Snapshot current = mSnapshot.get();
+                publish(new Snapshot(current.getVersion() + 1, table, mLoaded.append(batch), false, null));
+            }
+
+            @Override
+            public void onLoadFinished() {
+                // Solo cambia isComplete: la lista es la misma del último lote
+                Snapshot current = mSnapshot.get();
+                publish(new Snapshot(current.getVersion() + 1, current.getTable(), current.getMovies(), true, null));
+                Log.i(TAG, "load: " + current.getMovies().size() + " channels, version " + (current.getVersion() + 1));
+                // El arreglo queda solo en las instantáneas que lo usan
+                mLoaded = null;
+            }
+        });
+    }
+
+    /**
+     * Busca una versión nueva de la lista remota y publica solo el delta.
+     * No hace nada si la carga inicial no terminó o si ya hay una actualización en curso.
+     */
+    public void refresh() {
+        final Snapshot base = mSnapshot.get();
+        if (!base.isComplete() || mRefreshing) {
+            return;
+        }
+        mRefreshing = true;
+
+        MovieList.refreshAsync(mContext, base.getMovies(), new MovieList.RefreshCallback() {
+            @Override
+            public void onCatalogChanged(ChannelTable table, List<Movie> movies, MovieList.Delta delta) {
+                Snapshot current = mSnapshot.get();
+                publish(new Snapshot(current.getVersion() + 1, table, movies, true, delta));
+            }
+
+            @Override
+            public void onRefreshFinished() {
+                mRefreshing = false;
+            }
+        });
+    }
+
+    private void publish(Snapshot snapshot) {
+        mSnapshot.set(snapshot);
+        for (Listener listener : mListeners) {
+            listener.onSnapshot(snapshot);
+        }
+    }
+}
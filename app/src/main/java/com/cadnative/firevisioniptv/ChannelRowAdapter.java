@@ -0,0 +1,167 @@
+package com.cadnative.firevisioniptv;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.leanback.widget.DiffCallback;
+import androidx.leanback.widget.ObjectAdapter;
+import androidx.leanback.widget.Presenter;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import java.util.List;
+
+/*
+ * Adapter de una fila del browse con todos los canales de un grupo.
+ * No copia las películas: lee de la lista del grupo, que a su vez solo guarda referencias
+ * a las vistas livianas de la instantánea. Leanback solo pide (y vincula a una tarjeta)
+ * las posiciones que están en pantalla o cerca de ella, así que una fila de miles de
+ * canales cuesta lo mismo que una de cinco hasta que el usuario se desplaza por ella.
+ *
+ * Los cambios se avisan por rangos calculados con un diff por id de canal, así solo se
+ * vuelven a vincular las tarjetas de los canales que cambiaron.
+ */
+public class ChannelRowAdapter extends ObjectAdapter {
+
+    /**
+     * Diff de películas para ArrayObjectAdapter.setItems: es el mismo canal si tiene el mismo id,
+     * y no cambió si la tarjeta muestra lo mismo. No se compara por identidad: en cada actualización
+     * de la lista todas las películas son vistas nuevas sobre la tabla nueva.
+     */
+    public static final DiffCallback<Movie> MOVIE_DIFF = new DiffCallback<Movie>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Movie oldItem, @NonNull Movie newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Movie oldItem, @NonNull Movie newItem) {
+            return oldItem == newItem
+                    || (equal(oldItem.getTitle(), newItem.getTitle())
+                    && equal(oldItem.getStudio(), newItem.getStudio())
+                    && equal(oldItem.getCardImageUrl(), newItem.getCardImageUrl()));
+        }
+    };
+
+    private List<Movie> mMovies;
+
+    /**
+     * @param movies lista del grupo; los cambios posteriores se avisan con {@link #setMovies}
+     */
+    public ChannelRowAdapter(Presenter presenter, List<Movie> movies) {
+        super(presenter);
+        mMovies = movies;
+        // El id estable del canal permite que la fila conserve el foco al cambiar la lista
+        setHasStableIds(true);
+    }
+
+    @Override
+    public int size() {
+        return mMovies.size();
+    }
+
+    @Override
+    public Object get(int position) {
+        return mMovies.get(position);
+    }
+
+    @Override
+    public long getId(int position) {
+        return mMovies.get(position).getId();
+    }
+
+    /**
+     * Compara dos versiones de la lista de un grupo. Se puede llamar desde cualquier hilo
+     * mientras nadie modifique las listas.
+     * @return null si {@code newMovies} es {@code oldMovies} con películas agregadas al final
+     *         (el caso de la carga por lotes, que no necesita diff)
+     */
+    @Nullable
+    public static DiffUtil.DiffResult diff(final List<Movie> oldMovies, final List<Movie> newMovies) {
+        if (isAppend(oldMovies, newMovies)) {
+            return null;
+        }
+        return DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldMovies.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newMovies.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return MOVIE_DIFF.areItemsTheSame(oldMovies.get(oldPosition), newMovies.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return MOVIE_DIFF.areContentsTheSame(oldMovies.get(oldPosition), newMovies.get(newPosition));
+            }
+        }, false);
+    }
+
+    /**
+     * Pasa a mostrar {@code movies} avisando solo los rangos que cambiaron.
+     * @param diff resultado de {@link #diff} entre la lista anterior y {@code movies}
+     */
+    public void setMovies(List<Movie> movies, @Nullable DiffUtil.DiffResult diff) {
+        int oldSize = mMovies.size();
+        mMovies = movies;
+        if (diff == null) {
+            if (movies.size() > oldSize) {
+                notifyItemRangeInserted(oldSize, movies.size() - oldSize);
+            }
+            return;
+        }
+        diff.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                notifyItemRangeInserted(position, count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                notifyItemRangeRemoved(position, count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                notifyItemMoved(fromPosition, toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, @Nullable Object payload) {
+                notifyItemRangeChanged(position, count, payload);
+            }
+        });
+    }
+
+    /**
+     * Pasa a leer {@code movies} sin avisar cambios: tiene que tener los mismos canales, en el mismo
+     * orden y con el mismo contenido (por ejemplo, las mismas películas sobre la tabla de una versión
+     * nueva de la lista). Las tarjetas ya vinculadas muestran lo mismo y se actualizan al reciclarse.
+     */
+    public void replaceMovies(List<Movie> movies) {
+        mMovies = movies;
+    }
+
+    // Agregado al final si las películas anteriores siguen siendo los mismos objetos (carga por lotes)
+    private static boolean isAppend(List<Movie> oldMovies, List<Movie> newMovies) {
+        if (newMovies.size() < oldMovies.size()) {
+            return false;
+        }
+        for (int i = 0; i < oldMovies.size(); i++) {
+            if (oldMovies.get(i) != newMovies.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,42 @@
+package com.cadnative.firevisioniptv;
+
+import androidx.leanback.widget.HorizontalGridView;
+import androidx.leanback.widget.ListRowPresenter;
+import androidx.leanback.widget.Presenter;
+import androidx.leanback.widget.RowPresenter;
+import androidx.recyclerview.widget.RecyclerView;
+
+/*
+ * Presenter de las filas de canales del browse.
+ * Todas las filas usan un mismo RecycledViewPool: al bajar a otra fila se reutilizan las tarjetas
+ * que dejó de mostrar la de arriba en lugar de crear tarjetas nuevas. El pool guarda tarjetas
+ * para unas cuantas filas visibles, y cada fila pide a RecyclerView que prepare por adelantado
+ * las tarjetas que entran en pantalla, así la fila que aparece al bajar ya tiene sus primeras
+ * tarjetas creadas y vinculadas.
+ */
+public class ChannelRowPresenter extends ListRowPresenter {
+
+    // Tarjetas que entran a lo ancho de la pantalla (1920px / tarjeta de 313px más márgenes)
+    private static final int CARDS_PER_SCREEN = 6;
+
+    // Tarjetas guardadas para reutilizar: las de varias filas visibles, más las que salen al desplazarse
+    private static final int RECYCLED_POOL_SIZE = CARDS_PER_SCREEN * 8;
+
+    private final RecyclerView.RecycledViewPool mSharedPool = new RecyclerView.RecycledViewPool();
+
+    /**
+     * @param cardPresenter presenter de las tarjetas de todas las filas
+     */
+    public ChannelRowPresenter(Presenter cardPresenter) {
+        setRecycledPoolSize(cardPresenter, RECYCLED_POOL_SIZE);
+    }
+
+    @Override
+    protected void initializeRowViewHolder(RowPresenter.ViewHolder holder) {
+        super.initializeRowViewHolder(holder);
+        HorizontalGridView gridView = ((ViewHolder) holder).getGridView();
+        // Antes de vincular la fila, así el tamaño de setRecycledPoolSize se aplica al pool compartido
+        gridView.setRecycledViewPool(mSharedPool);
+        gridView.setInitialPrefetchItemCount(CARDS_PER_SCREEN);
+    }
+}
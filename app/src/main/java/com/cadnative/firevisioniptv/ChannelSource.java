@@ -0,0 +1,55 @@
+package com.cadnative.firevisioniptv;
+
+import io.realm.RealmObject;
+import io.realm.annotations.PrimaryKey;
+
+/**
+ * Origen de los canales guardados en Realm. Hay un solo registro: si el origen o su
+ * firma cambian, la copia local ya no sirve y la lista se vuelve a parsear.
+ */
+public class ChannelSource extends RealmObject {
+
+    @PrimaryKey
+    private String key;             // Siempre ChannelStore.CURRENT_SOURCE
+    private String source;          // "remote:<url>", "file:<ruta>" o "assets"
+    private String signature;       // Tamaño y fecha del archivo, o versión de la app para assets
+    private int channelCount;       // Canales guardados
+
+    /**
+     * Constructor vacío requerido por Realm.
+     */
+    public ChannelSource() {
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public void setSignature(String signature) {
+        this.signature = signature;
+    }
+
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    public void setChannelCount(int channelCount) {
+        this.channelCount = channelCount;
+    }
+}
@@ -0,0 +1,187 @@
+package com.cadnative.firevisioniptv;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.List;
+
+import io.realm.Realm;
+import io.realm.RealmConfiguration;
+import io.realm.RealmResults;
+import io.realm.Sort;
+
+/*
+ * Copia local en Realm de la última lista parseada.
+ * Al arrancar, si el origen de la lista no cambió (misma URL y misma copia descargada,
+ * mismo archivo copiado por el usuario, o misma versión de la app para los assets),
+ * los canales se leen de Realm en lotes en lugar de volver a parsear el texto M3U.
+ * Todos los métodos hacen acceso a disco: solo se llaman desde el hilo de carga.
+ */
+public final class ChannelStore {
+
+    // Tag para mensajes de log
+    private static final String TAG = "ChannelStore";
+
+    // Clave del único registro de ChannelSource
+    static final String CURRENT_SOURCE = "current";
+
+    private static final String REALM_NAME = "channels.realm";
+    // 2: sin índices ni nombre normalizado, que nunca se consultaban
+    private static final long SCHEMA_VERSION = 2;
+
+    private static Context sContext;
+    private static boolean sInitialized;
+
+    private ChannelStore() {
+    }
+
+    /**
+     * Guarda el contexto; se llama una vez desde FirevisionApplication.
+     * Realm se configura recién en el primer acceso, desde el hilo de carga,
+     * porque Realm.init carga la librería nativa y crea archivos (disco en el hilo principal).
+     */
+    static void init(Context context) {
+        sContext = context.getApplicationContext();
+    }
+
+    private static synchronized void ensureInitialized() {
+        if (sInitialized) {
+            return;
+        }
+        Realm.init(sContext);
+        Realm.setDefaultConfiguration(new RealmConfiguration.Builder()
+                .name(REALM_NAME)
+                .schemaVersion(SCHEMA_VERSION)
+                // Es solo una copia de la lista: si cambia el esquema se borra y se vuelve a parsear
+                .deleteRealmIfMigrationNeeded()
+                .build());
+        sInitialized = true;
+    }
+
+    /**
+     * Lee los canales guardados, en el orden de la lista original, entregándolos en lotes.
+     * Los lotes son vistas sobre los resultados de Realm, sin copiarlos al heap: el listener
+     * lee los campos que necesita durante la llamada (los canales dejan de valer al volver).
+     * Así los primeros canales llegan a la UI sin esperar a leer el resto.
+     * @param source identificador del origen ("remote:<url>", "file:<ruta>" o "assets")
+     * @param signature firma del contenido del origen
+     * @return false si lo guardado no corresponde a ese origen y firma (no se entregó nada)
+     */
+    static boolean read(String source, String signature, int batchSize, fileReader.BatchListener listener) {
+        ensureInitialized();
+        try (Realm realm = Realm.getDefaultInstance()) {
+            ChannelSource stored = realm.where(ChannelSource.class)
+                    .equalTo("key", CURRENT_SOURCE)
+                    .findFirst();
+            if (stored == null || !source.equals(stored.getSource())
+                    || !signature.equals(stored.getSignature())) {
+                return false;
+            }
+
+            RealmResults<Channel> results = realm.where(Channel.class)
+                    .sort("channelPosition", Sort.ASCENDING)
+                    .findAll();
+            if (results.size() != stored.getChannelCount() || results.isEmpty()) {
+                return false;
+            }
+
+            for (int start = 0; start < results.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, results.size());
+                listener.onBatch(results.subList(start, end));
+            }
+            Log.i(TAG, "read: " + results.size() + " channels from " + source);
+            return true;
+        } catch (RuntimeException e) {
+            // Cualquier falla de Realm se trata como "sin copia": se vuelve a parsear la lista
+            Log.w(TAG, "Cannot read stored channels: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Comienza a reemplazar todos los canales guardados. Los lotes se agregan con
+     * {@link Writer#add} a medida que se leen, dentro de una única transacción, y solo
+     * reemplazan a los anteriores cuando se llama a {@link Writer#commit}.
+     * Se cierra siempre (try-with-resources); si no se confirmó, lo guardado queda como estaba.
+     */
+    static Writer beginReplace() {
+        return new Writer();
+    }
+
+    /**
+     * Escritura en curso de una lista nueva. Una falla de Realm no interrumpe la carga:
+     * se registra, se descarta la transacción y las llamadas siguientes no hacen nada.
+     */
+    static final class Writer implements AutoCloseable {
+        private Realm mRealm;
+        private int mCount;
+
+        private Writer() {
+            try {
+                ensureInitialized();
+                mRealm = Realm.getDefaultInstance();
+                mRealm.beginTransaction();
+                mRealm.delete(Channel.class);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Guarda un lote, en el orden de la lista. Realm copia los canales, así que
+         * después de esta llamada no hace falta conservarlos.
+         * Completa en cada canal la posición, que da el orden al leerlos.
+         */
+        void add(List<Channel> batch) {
+            if (mRealm == null) {
+                return;
+            }
+            for (Channel channel : batch) {
+                channel.setChannelPosition(mCount++);
+            }
+            try {
+                mRealm.insert(batch);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Confirma los canales agregados como la copia de {@code source} con esa firma.
+         */
+        void commit(String source, String signature) {
+            if (mRealm == null) {
+                return;
+            }
+            ChannelSource stored = new ChannelSource();
+            stored.setKey(CURRENT_SOURCE);
+            stored.setSource(source);
+            stored.setSignature(signature);
+            stored.setChannelCount(mCount);
+            try {
+                mRealm.insertOrUpdate(stored);
+                mRealm.commitTransaction();
+                Log.i(TAG, "replace: " + mCount + " channels from " + source);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (mRealm == null) {
+                return;
+            }
+            if (mRealm.isInTransaction()) {
+                mRealm.cancelTransaction();
+            }
+            mRealm.close();
+            mRealm = null;
+        }
+
+        private void fail(RuntimeException e) {
+            Log.w(TAG, "Cannot store channels: " + e.getMessage());
+            close();
+        }
+    }
+}
@@ -14,8 +14,8 @@ public class DetailsActivity extends FragmentActivity {
     // Constante usada para transiciones compartidas (por ejemplo, animaciones entre actividades)
     public static final String SHARED_ELEMENT_NAME = "hero";
 
-    // Clave para pasar un objeto tipo "Movie" a esta actividad mediante un Intent
-    public static final String MOVIE = "Movie";
+    // Clave para pasar a esta actividad (y a PlaybackActivity) el id del canal, ver Movie.getId()
+    public static final String CHANNEL_ID = "ChannelId";
 
     /**
      * Método que se llama cuando se crea por primera vez la actividad.
@@ -0,0 +1,186 @@
+package com.cadnative.firevisioniptv;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.cadnative.firevisioniptv.catalog.NegativeUrlCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Caché negativa de imágenes (logos y fondos) que no se pudieron cargar.
+ * Muchos tvg-logo de las listas apuntan a imágenes que ya no existen; sin esta caché Glide
+ * las vuelve a pedir (con su conexión y su consulta DNS) cada vez que la tarjeta aparece.
+ * Una URL que falla queda bloqueada una hora, y el doble con cada falla seguida hasta una
+ * semana; mientras tanto se muestra directamente la imagen por defecto. Las fallas se guardan
+ * en disco, así que valen también para los próximos arranques.
+ * Sin red validada no se registran fallas: sin conexión fallan todas las URLs, no solo las malas.
+ */
+final class FailedImageUrls {
+
+    // Tag para mensajes de log
+    private static final String TAG = "FailedImageUrls";
+
+    private static final String FILE_NAME = "failed_images.bin";
+
+    private static final long BASE_TTL_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long MAX_TTL_MS = TimeUnit.DAYS.toMillis(7);
+
+    // Espera antes de guardar, para escribir una sola vez las fallas de toda una pasada por el browse
+    private static final long SAVE_DELAY_SECONDS = 30;
+
+    private static final NegativeUrlCache sCache = new NegativeUrlCache(BASE_TTL_MS, MAX_TTL_MS);
+
+    // Lectura y escritura del archivo, fuera del hilo principal
+    private static final ScheduledExecutorService sDisk = Executors.newSingleThreadScheduledExecutor();
+
+    private static Context sContext;
+    private static boolean sSaveScheduled;
+
+    // Hay una red con acceso a internet comprobado; lo actualiza ONLINE_CALLBACK
+    private static volatile boolean sOnline;
+
+    /**
+     * Sigue la red por defecto, así recordFailure no consulta al ConnectivityManager
+     * (una llamada al proceso del sistema) en cada imagen que falla.
+     */
+    private static final ConnectivityManager.NetworkCallback ONLINE_CALLBACK = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+            sOnline = capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+        }
+
+        @Override
+        public void onLost(Network network) {
+            sOnline = false;
+        }
+    };
+
+    /**
+     * Registra cada carga de Glide: las fallas bloquean la URL y las descargas exitosas la desbloquean.
+     * El modelo puede ser la URL o un ChannelLogo (su toString es la URL).
+     */
+    private static final RequestListener<Object> LISTENER = new RequestListener<Object>() {
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Object> target,
+                                    boolean isFirstResource) {
+            if (model != null) {
+                recordFailure(model.toString());
+            }
+            return false;  // Glide muestra igual la imagen de error
+        }
+
+        @Override
+        public boolean onResourceReady(Object resource, Object model, Target<Object> target,
+                                       DataSource dataSource, boolean isFirstResource) {
+            if (dataSource == DataSource.REMOTE && model != null) {
+                recordSuccess(model.toString());
+            }
+            return false;
+        }
+    };
+
+    private FailedImageUrls() {
+    }
+
+    /**
+     * Guarda el contexto, empieza a seguir la red y lee las fallas guardadas en segundo plano
+     * (se combinan con las que se registren mientras tanto); se llama una vez desde FirevisionApplication.
+     */
+    static void init(Context context) {
+        sContext = context.getApplicationContext();
+        ConnectivityManager connectivity = (ConnectivityManager) sContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity != null) {
+            // Se llama enseguida con el estado de la red actual, si hay una
+            connectivity.registerDefaultNetworkCallback(ONLINE_CALLBACK);
+        }
+        sDisk.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sCache.readFrom(file());
+                    Log.i(TAG, "init: " + sCache.size() + " failed image urls");
+                } catch (IOException e) {
+                    Log.w(TAG, "Cannot read failed image urls: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Listener para las cargas de Glide de imágenes que pueden fallar.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> RequestListener<T> listener() {
+        return (RequestListener<T>) (RequestListener<?>) LISTENER;
+    }
+
+    /**
+     * true si la URL falló hace poco y no vale la pena pedirla. No crea objetos: se puede
+     * llamar al vincular cada tarjeta.
+     */
+    static boolean isBlocked(String url) {
+        return sCache.isBlocked(NegativeUrlCache.keyOf(url), System.currentTimeMillis());
+    }
+
+    /**
+     * La URL, o null si está bloqueada: Glide con un modelo null muestra la imagen de error sin pedir nada.
+     */
+    @Nullable
+    static String unlessBlocked(@Nullable String url) {
+        return url != null && isBlocked(url) ? null : url;
+    }
+
+    static void recordFailure(String url) {
+        if (!sOnline) {
+            return;
+        }
+        sCache.recordFailure(NegativeUrlCache.keyOf(url), System.currentTimeMillis());
+        scheduleSave();
+    }
+
+    static void recordSuccess(String url) {
+        sCache.recordSuccess(NegativeUrlCache.keyOf(url));
+        if (sCache.isDirty()) {
+            scheduleSave();
+        }
+    }
+
+    private static synchronized void scheduleSave() {
+        if (sSaveScheduled || sContext == null) {
+            return;
+        }
+        sSaveScheduled = true;
+        sDisk.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (FailedImageUrls.class) {
+                    sSaveScheduled = false;
+                }
+                try {
+                    sCache.writeTo(file(), System.currentTimeMillis());
+                    Log.d(TAG, "save: " + sCache.size() + " failed image urls");
+                } catch (IOException e) {
+                    Log.w(TAG, "Cannot write failed image urls: " + e.getMessage());
+                }
+            }
+        }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static File file() {
+        return new File(sContext.getFilesDir(), FILE_NAME);
+    }
+}
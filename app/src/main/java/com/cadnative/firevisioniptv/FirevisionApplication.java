@@ -2,17 +2,42 @@ package com.cadnative.firevisioniptv;
 
 import android.app.Application;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
 
 public class FirevisionApplication extends Application {
     private static FirevisionApplication instance;
 
+    // Única fuente de canales del proceso
+    private ChannelRepository channelRepository;
+
     @Override
     public void onCreate() {
         super.onCreate();
+        StartupTrace.begin(StartupTrace.APPLICATION);
         instance = this;
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            // En debug, cualquier acceso a disco o red en el hilo principal queda en el log
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .detectNetwork()
+                    .penaltyLog()
+                    .build());
+        }
+        ChannelStore.init(this);
+        FailedImageUrls.init(this);
+        channelRepository = new ChannelRepository(this);
+        // Con la lista completa, guarda en el paquete local los logos que falten
+        channelRepository.subscribe(new LogoPackDownloader(this));
+        StartupTrace.end(StartupTrace.APPLICATION);
     }
 
     public static Context getAppContext() {
         return instance.getApplicationContext();
     }
+
+    public static ChannelRepository getChannelRepository() {
+        return instance.channelRepository;
+    }
 }
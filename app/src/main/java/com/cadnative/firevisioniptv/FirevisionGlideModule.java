@@ -0,0 +1,79 @@
+package com.cadnative.firevisioniptv;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/*
+ * Configuración de Glide para los equipos de TV, que suelen tener 1 o 2 GB de RAM.
+ * Los tamaños de la caché en memoria y en disco dependen de la memoria del equipo, y por defecto
+ * las imágenes se decodifican en RGB_565 (Glide usa ARGB_8888 igual si la imagen tiene
+ * transparencia, como la mayoría de los logos PNG). Las opciones de las tarjetas están en
+ * CardPresenter.CARD_IMAGE_OPTIONS.
+ * Los logos de tarjeta (ChannelLogo) se leen primero del paquete local y, si no están, de la red.
+ */
+@GlideModule
+public final class FirevisionGlideModule extends AppGlideModule {
+
+    // Tag para mensajes de log
+    private static final String TAG = "FirevisionGlideModule";
+
+    // Por debajo de esta RAM total el equipo se trata como de poca memoria (Fire TV Stick de 1 GB)
+    private static final long LOW_MEMORY_BYTES = 1536L * 1024 * 1024;
+
+    private static final String DISK_CACHE_DIR = "image_cache";
+    private static final long LOW_MEMORY_DISK_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final long DISK_CACHE_BYTES = 192L * 1024 * 1024;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        boolean lowMemory = activityManager.isLowRamDevice() || memoryInfo.totalMem < LOW_MEMORY_BYTES;
+
+        // Una pantalla del browse son unas 20 tarjetas y el fondo; en equipos chicos
+        // alcanza con guardar algo más de una pantalla de imágenes ya decodificadas
+        builder.setMemorySizeCalculator(new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(lowMemory ? 1.5f : 2)
+                .setBitmapPoolScreens(1)
+                .setMaxSizeMultiplier(lowMemory ? 0.25f : 0.4f)
+                .build());
+
+        long diskCacheBytes = lowMemory ? LOW_MEMORY_DISK_CACHE_BYTES : DISK_CACHE_BYTES;
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, diskCacheBytes));
+
+        builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        builder.setLogLevel(Log.ERROR);
+
+        Log.i(TAG, "applyOptions: lowMemory=" + lowMemory + " diskCache=" + diskCacheBytes);
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        // El paquete va primero; si no tiene el logo, Glide sigue con la descarga
+        registry.prepend(ChannelLogo.class, ByteBuffer.class, new LogoPackModelLoader.Factory());
+        registry.append(ChannelLogo.class, InputStream.class, new LogoPackModelLoader.UrlLoader.Factory());
+    }
+
+    // Todas las opciones están en esta clase; no hace falta buscar módulos en el manifiesto
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,275 @@
+package com.cadnative.firevisioniptv;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.SurfaceHolder;
+
+import androidx.leanback.media.PlaybackGlueHost;
+import androidx.leanback.media.PlayerAdapter;
+import androidx.leanback.media.SurfaceHolderGlueHost;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * PlayerAdapter sobre MediaPlayer que puede enviar cabeceras HTTP (User-Agent, Referer) al abrir el stream.
+ * Algunos servidores IPTV rechazan la conexión si no reciben las cabeceras que pide la lista
+ * con #EXTVLCOPT.
+ *
+ * Se comporta como el MediaPlayerAdapter de Leanback, pero no lo extiende: ese adaptador abre la
+ * URI sin cabeceras en cuanto se llama a setDataSource, y volver a abrirla después significaba
+ * una conexión de más (rechazada por esos servidores) en cada cambio de canal. Aquí el
+ * MediaPlayer se abre una sola vez, ya con las cabeceras.
+ */
+public class HeaderMediaPlayerAdapter extends PlayerAdapter {
+
+    // Tag para mensajes de log
+    private static final String TAG = "HeaderMediaPlayerAdapter";
+
+    // Intervalo entre avisos de la posición mientras los controles la muestran (el mismo de Leanback)
+    private static final int PROGRESS_UPDATE_MS = 16;
+
+    private final Context mContext;
+    private final MediaPlayer mPlayer = new MediaPlayer();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private SurfaceHolderGlueHost mSurfaceHolderGlueHost;
+    private Uri mMediaSourceUri;
+    private boolean mInitialized;    // El MediaPlayer terminó de preparar el stream
+    private boolean mHasDisplay;     // Hay una superficie donde mostrar el video
+    private boolean mBufferingStart; // El MediaPlayer avisó que está esperando datos
+    private long mBufferedProgress;
+
+    // Avisa la posición actual mientras esté activado setProgressUpdatingEnabled
+    private final Runnable mProgressUpdater = new Runnable() {
+        @Override
+        public void run() {
+            getCallback().onCurrentPositionChanged(HeaderMediaPlayerAdapter.this);
+            mHandler.postDelayed(this, PROGRESS_UPDATE_MS);
+        }
+    };
+
+    public HeaderMediaPlayerAdapter(Context context) {
+        mContext = context;
+        mPlayer.setAudioAttributes(new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .setContentType(AudioAttributes.CONTENT_TYPE_MOVIE)
+                .build());
+
+        mPlayer.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
+            @Override
+            public void onPrepared(MediaPlayer mp) {
+                mInitialized = true;
+                notifyBufferingStartEnd();
+                if (mSurfaceHolderGlueHost == null || mHasDisplay) {
+                    getCallback().onPreparedStateChanged(HeaderMediaPlayerAdapter.this);
+                }
+            }
+        });
+        mPlayer.setOnCompletionListener(new MediaPlayer.OnCompletionListener() {
+            @Override
+            public void onCompletion(MediaPlayer mp) {
+                getCallback().onPlayStateChanged(HeaderMediaPlayerAdapter.this);
+                getCallback().onPlayCompleted(HeaderMediaPlayerAdapter.this);
+            }
+        });
+        mPlayer.setOnBufferingUpdateListener(new MediaPlayer.OnBufferingUpdateListener() {
+            @Override
+            public void onBufferingUpdate(MediaPlayer mp, int percent) {
+                mBufferedProgress = getDuration() * percent / 100;
+                getCallback().onBufferedPositionChanged(HeaderMediaPlayerAdapter.this);
+            }
+        });
+        mPlayer.setOnVideoSizeChangedListener(new MediaPlayer.OnVideoSizeChangedListener() {
+            @Override
+            public void onVideoSizeChanged(MediaPlayer mp, int width, int height) {
+                getCallback().onVideoSizeChanged(HeaderMediaPlayerAdapter.this, width, height);
+            }
+        });
+        mPlayer.setOnErrorListener(new MediaPlayer.OnErrorListener() {
+            @Override
+            public boolean onError(MediaPlayer mp, int what, int extra) {
+                getCallback().onError(HeaderMediaPlayerAdapter.this, what, "Playback error " + what + ", " + extra);
+                return true;  // Manejado: no se avisa además como reproducción terminada
+            }
+        });
+        mPlayer.setOnInfoListener(new MediaPlayer.OnInfoListener() {
+            @Override
+            public boolean onInfo(MediaPlayer mp, int what, int extra) {
+                if (what == MediaPlayer.MEDIA_INFO_BUFFERING_START) {
+                    mBufferingStart = true;
+                    notifyBufferingStartEnd();
+                } else if (what == MediaPlayer.MEDIA_INFO_BUFFERING_END) {
+                    mBufferingStart = false;
+                    notifyBufferingStartEnd();
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Abre la URI con las cabeceras HTTP (pueden ser null) y la prepara en segundo plano.
+     * @return false si la URI es la misma que ya estaba cargada
+     */
+    public boolean setDataSource(Uri uri, Map<String, String> headers) {
+        if (uri == null ? mMediaSourceUri == null : uri.equals(mMediaSourceUri)) {
+            return false;
+        }
+        mMediaSourceUri = uri;
+        reset();
+        if (uri == null) {
+            return true;
+        }
+        try {
+            mPlayer.setDataSource(mContext, uri, headers);
+            mPlayer.prepareAsync();
+        } catch (IOException | IllegalStateException e) {
+            Log.e(TAG, "Cannot open " + uri, e);
+            getCallback().onError(this, 0, "Cannot open " + uri);
+            return true;
+        }
+        notifyBufferingStartEnd();
+        getCallback().onPlayStateChanged(this);
+        return true;
+    }
+
+    // Igual que setDataSource(uri, null), sin cabeceras
+    public boolean setDataSource(Uri uri) {
+        return setDataSource(uri, null);
+    }
+
+    public final MediaPlayer getMediaPlayer() {
+        return mPlayer;
+    }
+
+    @Override
+    public void onAttachedToHost(PlaybackGlueHost host) {
+        if (host instanceof SurfaceHolderGlueHost) {
+            mSurfaceHolderGlueHost = (SurfaceHolderGlueHost) host;
+            mSurfaceHolderGlueHost.setSurfaceHolderCallback(new SurfaceHolder.Callback() {
+                @Override
+                public void surfaceCreated(SurfaceHolder surfaceHolder) {
+                    setDisplay(surfaceHolder);
+                }
+
+                @Override
+                public void surfaceChanged(SurfaceHolder surfaceHolder, int format, int width, int height) {
+                }
+
+                @Override
+                public void surfaceDestroyed(SurfaceHolder surfaceHolder) {
+                    setDisplay(null);
+                }
+            });
+        }
+    }
+
+    // Se llama al cerrar el reproductor: libera el MediaPlayer, que ya no se puede volver a usar
+    @Override
+    public void onDetachedFromHost() {
+        if (mSurfaceHolderGlueHost != null) {
+            mSurfaceHolderGlueHost.setSurfaceHolderCallback(null);
+            mSurfaceHolderGlueHost = null;
+        }
+        mHandler.removeCallbacks(mProgressUpdater);
+        reset();
+        mHasDisplay = false;
+        mPlayer.release();
+    }
+
+    @Override
+    public void play() {
+        if (!mInitialized || mPlayer.isPlaying()) {
+            return;
+        }
+        mPlayer.start();
+        getCallback().onPlayStateChanged(this);
+        getCallback().onCurrentPositionChanged(this);
+    }
+
+    @Override
+    public void pause() {
+        if (isPlaying()) {
+            mPlayer.pause();
+            getCallback().onPlayStateChanged(this);
+        }
+    }
+
+    @Override
+    public void seekTo(long positionInMs) {
+        if (mInitialized) {
+            mPlayer.seekTo((int) positionInMs);
+        }
+    }
+
+    @Override
+    public long getCurrentPosition() {
+        return mInitialized ? mPlayer.getCurrentPosition() : -1;
+    }
+
+    @Override
+    public long getDuration() {
+        return mInitialized ? mPlayer.getDuration() : -1;
+    }
+
+    @Override
+    public long getBufferedPosition() {
+        return mBufferedProgress;
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return mInitialized && mPlayer.isPlaying();
+    }
+
+    // Listo para reproducir: el stream está preparado y, si hay superficie, ya tiene dónde mostrarse
+    @Override
+    public boolean isPrepared() {
+        return mInitialized && (mSurfaceHolderGlueHost == null || mHasDisplay);
+    }
+
+    @Override
+    public void setProgressUpdatingEnabled(boolean enabled) {
+        mHandler.removeCallbacks(mProgressUpdater);
+        if (enabled) {
+            mHandler.postDelayed(mProgressUpdater, PROGRESS_UPDATE_MS);
+        }
+    }
+
+    // Vuelve el MediaPlayer al estado inicial, avisando si estaba preparado
+    private void reset() {
+        if (mInitialized) {
+            mInitialized = false;
+            notifyBufferingStartEnd();
+            if (mHasDisplay) {
+                getCallback().onPreparedStateChanged(this);
+            }
+        }
+        mBufferingStart = false;
+        mBufferedProgress = 0;
+        mPlayer.reset();
+    }
+
+    private void setDisplay(SurfaceHolder surfaceHolder) {
+        boolean hadDisplay = mHasDisplay;
+        mHasDisplay = surfaceHolder != null;
+        if (hadDisplay == mHasDisplay) {
+            return;
+        }
+        mPlayer.setDisplay(surfaceHolder);
+        if (mInitialized) {
+            getCallback().onPreparedStateChanged(this);
+        }
+    }
+
+    // Los controles muestran la espera mientras el stream no está preparado o el MediaPlayer espera datos
+    private void notifyBufferingStartEnd() {
+        getCallback().onBufferingStateChanged(this, mBufferingStart || !mInitialized);
+    }
+}
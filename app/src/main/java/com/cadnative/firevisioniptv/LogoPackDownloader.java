@@ -0,0 +1,256 @@
+package com.cadnative.firevisioniptv;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.FutureTarget;
+import com.cadnative.firevisioniptv.catalog.CategoryIndex;
+import com.cadnative.firevisioniptv.catalog.LogoPack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * Descarga en segundo plano los logos de la lista al paquete local (LogoPack), ya reducidos al
+ * tamaño de tarjeta, para que en el próximo arranque el browse no necesite la red.
+ * Corre cada vez que se publica una instantánea completa y solo baja los logos que faltan:
+ * primero los de las primeras tarjetas de cada fila (lo que se ve al abrir la app) y después
+ * el resto. Se bajan pocos a la vez porque muchos hosts de logos son lentos o limitan pedidos,
+ * y solo hay unos pocos pedidos en espera: los logos se van pidiendo a medida que terminan los
+ * anteriores. Si llega una instantánea más nueva, la pasada en curso se abandona (cancelando lo
+ * pedido) y las pasadas que esperaban se saltean; solo corre la de la última instantánea.
+ * El tamaño máximo del paquete está en R.integer.logo_pack_max_mb.
+ */
+public final class LogoPackDownloader implements ChannelRepository.Listener {
+
+    // Tag para mensajes de log
+    private static final String TAG = "LogoPackDownloader";
+
+    private static final String PACK_DIRECTORY = "logos";
+
+    // Descargas simultáneas como máximo
+    private static final int MAX_CONCURRENT_DOWNLOADS = 3;
+
+    // Descargas pedidas a la vez (en curso o esperando un hilo)
+    private static final int MAX_IN_FLIGHT = MAX_CONCURRENT_DOWNLOADS * 2;
+
+    // Tarjetas de cada fila que se descargan antes que el resto
+    private static final int FIRST_SCREEN_CARDS = 8;
+
+    // Logos descargados entre cada escritura del índice, para no perder el avance si se cierra la app
+    private static final int FLUSH_EVERY = 50;
+
+    private static final long DOWNLOAD_TIMEOUT_SECONDS = 20;
+
+    // Coordina cada pasada de descarga; las descargas en sí van a sDownloads
+    private static final ExecutorService sJob = Executors.newSingleThreadExecutor();
+    private static final ExecutorService sDownloads = Executors.newFixedThreadPool(MAX_CONCURRENT_DOWNLOADS);
+
+    private static LogoPack sPack;
+    private static boolean sPackFailed;
+
+    private final Context mContext;
+
+    // Versión de la última instantánea completa recibida; las pasadas de versiones anteriores se abandonan
+    private volatile long mLatestVersion;
+
+    LogoPackDownloader(Context context) {
+        this.mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Paquete de logos del proceso, abierto la primera vez que se pide; null si no se pudo abrir.
+     * Accede a disco: no se llama desde el hilo principal.
+     */
+    static synchronized LogoPack getPack() {
+        if (sPack == null && !sPackFailed) {
+            Context context = FirevisionApplication.getAppContext();
+            long maxBytes = context.getResources().getInteger(R.integer.logo_pack_max_mb) * 1024L * 1024L;
+            try {
+                sPack = LogoPack.open(new File(context.getFilesDir(), PACK_DIRECTORY), maxBytes);
+                Log.i(TAG, "getPack: " + sPack.size() + " logos, " + sPack.sizeInBytes() + " bytes");
+            } catch (IOException e) {
+                // Sin paquete las tarjetas siguen cargando los logos de la red
+                Log.w(TAG, "Cannot open logo pack: " + e.getMessage());
+                sPackFailed = true;
+            }
+        }
+        return sPack;
+    }
+
+    @Override
+    public void onSnapshot(final ChannelRepository.Snapshot snapshot) {
+        if (!snapshot.isComplete()) {
+            return;
+        }
+        mLatestVersion = snapshot.getVersion();
+        sJob.execute(new Runnable() {
+            @Override
+            public void run() {
+                download(snapshot);
+            }
+        });
+    }
+
+    private void download(ChannelRepository.Snapshot snapshot) {
+        if (isSuperseded(snapshot)) {
+            return;
+        }
+        final LogoPack pack = getPack();
+        if (pack == null) {
+            return;
+        }
+
+        Iterator<String> urls = orderedUrls(snapshot).iterator();
+        ArrayDeque<Future<Boolean>> inFlight = new ArrayDeque<>(MAX_IN_FLIGHT);
+        int requested = 0;
+        int stored = 0;
+        try {
+            while (true) {
+                // Completa la ventana con los siguientes logos que faltan
+                while (inFlight.size() < MAX_IN_FLIGHT && urls.hasNext()) {
+                    final String url = urls.next();
+                    if (!pack.contains(LogoPack.keyOf(url)) && !FailedImageUrls.isBlocked(url)) {
+                        inFlight.add(sDownloads.submit(new Callable<Boolean>() {
+                            @Override
+                            public Boolean call() {
+                                return downloadInto(pack, url);
+                            }
+                        }));
+                        requested++;
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                if (isSuperseded(snapshot)) {
+                    Log.i(TAG, "download: superseded by version " + mLatestVersion);
+                    break;
+                }
+                try {
+                    if (inFlight.poll().get()) {
+                        stored++;
+                        if (stored % FLUSH_EVERY == 0) {
+                            pack.flush();
+                        }
+                    }
+                } catch (ExecutionException | IOException e) {
+                    Log.w(TAG, "download: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Lo que quedó pedido al abandonar la pasada
+            for (Future<Boolean> download : inFlight) {
+                download.cancel(true);
+            }
+        }
+        try {
+            pack.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write logo pack index: " + e.getMessage());
+        }
+        if (requested > 0) {
+            Log.i(TAG, "download: stored " + stored + " of " + requested + " logos");
+        }
+    }
+
+    // Llegó una instantánea completa más nueva; su pasada ya está en la cola
+    private boolean isSuperseded(ChannelRepository.Snapshot snapshot) {
+        return snapshot.getVersion() != mLatestVersion;
+    }
+
+    /**
+     * Descarga un logo al tamaño de tarjeta y lo agrega al paquete.
+     * @return false si no se pudo descargar o decodificar
+     */
+    private boolean downloadInto(LogoPack pack, String url) {
+        // Se carga por la URL (no como ChannelLogo) para ir a la red y no al propio paquete
+        FutureTarget<Bitmap> target = Glide.with(mContext)
+                .asBitmap()
+                .load(url)
+                .apply(CardPresenter.CARD_IMAGE_OPTIONS)
+                // Bitmap de software para poder comprimirlo; no hace falta guardarlo también en la caché de Glide
+                .disallowHardwareConfig()
+                .diskCacheStrategy(DiskCacheStrategy.NONE)
+                .skipMemoryCache(true)
+                .priority(Priority.LOW)
+                .submit();
+        try {
+            Bitmap bitmap = target.get(DOWNLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bitmap.getByteCount() / 4);
+            // PNG conserva la transparencia de los logos
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            pack.put(LogoPack.keyOf(url), out.toByteArray());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            Log.d(TAG, "Cannot download logo " + url + ": " + e.getMessage());
+            FailedImageUrls.recordFailure(url);
+            return false;
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot store logo " + url + ": " + e.getMessage());
+            return false;
+        } finally {
+            Glide.with(mContext).clear(target);
+        }
+    }
+
+    /**
+     * URLs de logo sin repetir: primero las de las primeras tarjetas de cada fila, en el orden
+     * del browse (categorías por nombre y los canales sin categoría al final), y después el resto.
+     */
+    private static Set<String> orderedUrls(ChannelRepository.Snapshot snapshot) {
+        List<Movie> movies = snapshot.getMovies();
+        CategoryIndex categories = snapshot.getTable().getCategories();
+        TreeMap<String, Integer> byName = new TreeMap<>();
+        for (int ordinal = 0; ordinal < categories.getCategoryCount(); ordinal++) {
+            byName.put(categories.getName(ordinal), ordinal);
+        }
+
+        Set<String> urls = new LinkedHashSet<>();
+        for (Map.Entry<String, Integer> category : byName.entrySet()) {
+            addUrls(categories.getRows(category.getValue(), movies.size()), movies, urls);
+        }
+        addUrls(categories.getUncategorizedRows(movies.size()), movies, urls);
+        for (Movie movie : movies) {
+            addUrl(movie, urls);
+        }
+        return urls;
+    }
+
+    private static void addUrls(int[] rows, List<Movie> movies, Set<String> urls) {
+        for (int i = 0; i < rows.length && i < FIRST_SCREEN_CARDS; i++) {
+            addUrl(movies.get(rows[i]), urls);
+        }
+    }
+
+    private static void addUrl(Movie movie, Set<String> urls) {
+        String url = movie.getCardImageUrl();
+        if (url != null && !url.isEmpty()) {
+            urls.add(url);
+        }
+    }
+}
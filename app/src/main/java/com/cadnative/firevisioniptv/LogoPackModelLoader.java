@@ -0,0 +1,147 @@
+package com.cadnative.firevisioniptv;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+import com.cadnative.firevisioniptv.catalog.LogoPack;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/*
+ * Carga de logos de tarjeta para Glide (se registra en FirevisionGlideModule).
+ * Primero se prueba el paquete local de LogoPackDownloader; si el logo no está, este loader
+ * no devuelve nada y Glide pasa a UrlLoader, que lo descarga como cualquier otra URL.
+ */
+public final class LogoPackModelLoader implements ModelLoader<ChannelLogo, ByteBuffer> {
+
+    // Tag para mensajes de log
+    private static final String TAG = "LogoPackModelLoader";
+
+    @Override
+    public boolean handles(@NonNull ChannelLogo model) {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<ByteBuffer> buildLoadData(@NonNull ChannelLogo model, int width, int height,
+                                              @NonNull Options options) {
+        // Se llama en los hilos de Glide, así que abrir el paquete no bloquea la UI
+        LogoPack pack = LogoPackDownloader.getPack();
+        long key = LogoPack.keyOf(model.getUrl());
+        if (pack == null || !pack.contains(key)) {
+            return null;
+        }
+        return new LoadData<>(new ObjectKey(model.getUrl()), new PackFetcher(pack, key));
+    }
+
+    /**
+     * Lee los bytes del logo del paquete.
+     */
+    private static final class PackFetcher implements DataFetcher<ByteBuffer> {
+        private final LogoPack pack;
+        private final long key;
+
+        PackFetcher(LogoPack pack, long key) {
+            this.pack = pack;
+            this.key = key;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super ByteBuffer> callback) {
+            try {
+                byte[] data = pack.get(key);
+                if (data == null) {
+                    // Se olvidó entre buildLoadData y ahora
+                    callback.onLoadFailed(new IOException("Logo evicted from pack: " + key));
+                } else {
+                    callback.onDataReady(ByteBuffer.wrap(data));
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot read logo from pack: " + e.getMessage());
+                callback.onLoadFailed(e);
+            }
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @NonNull
+        @Override
+        public Class<ByteBuffer> getDataClass() {
+            return ByteBuffer.class;
+        }
+
+        // El paquete ya es una caché en disco: Glide no vuelve a guardar estos bytes en la suya
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.DATA_DISK_CACHE;
+        }
+    }
+
+    /**
+     * Descarga el logo de su URL, con el loader de red que tenga registrado Glide.
+     */
+    public static final class UrlLoader implements ModelLoader<ChannelLogo, InputStream> {
+        private final ModelLoader<GlideUrl, InputStream> mUrlLoader;
+
+        UrlLoader(ModelLoader<GlideUrl, InputStream> urlLoader) {
+            this.mUrlLoader = urlLoader;
+        }
+
+        @Override
+        public boolean handles(@NonNull ChannelLogo model) {
+            return true;
+        }
+
+        @Nullable
+        @Override
+        public LoadData<InputStream> buildLoadData(@NonNull ChannelLogo model, int width, int height,
+                                                   @NonNull Options options) {
+            return mUrlLoader.buildLoadData(new GlideUrl(model.getUrl()), width, height, options);
+        }
+
+        public static final class Factory implements ModelLoaderFactory<ChannelLogo, InputStream> {
+            @NonNull
+            @Override
+            public ModelLoader<ChannelLogo, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+                return new UrlLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+            }
+
+            @Override
+            public void teardown() {
+            }
+        }
+    }
+
+    public static final class Factory implements ModelLoaderFactory<ChannelLogo, ByteBuffer> {
+        @NonNull
+        @Override
+        public ModelLoader<ChannelLogo, ByteBuffer> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new LogoPackModelLoader();
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cadnative.firevisioniptv;
+
+import android.graphics.drawable.Drawable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/*
+ * Precarga de logos de las tarjetas que están por aparecer en el browse.
+ * Glide recién pide un logo cuando CardPresenter vincula la tarjeta, así que al desplazarse
+ * rápido se ven las imágenes por defecto. Con cada cambio de foco, MainFragment pasa las URLs
+ * de las próximas tarjetas; las que no estaban se piden con baja prioridad y con las mismas
+ * opciones que la tarjeta (misma clave de caché), y las que ya no están se cancelan. Así hay
+ * pocas cargas en curso a la vez aunque se mantenga presionado el DPAD. Si la tarjeta se vincula
+ * antes de que termine la precarga, Glide une las dos cargas en una.
+ * Solo se usa desde el hilo principal.
+ */
+final class LogoPrefetcher {
+
+    private final RequestManager mGlide;
+
+    // Precargas pedidas, por URL; las terminadas se quedan hasta que salen de la ventana
+    private final Map<String, Target<Drawable>> mRequests = new HashMap<>();
+
+    LogoPrefetcher(RequestManager glide) {
+        this.mGlide = glide;
+    }
+
+    /**
+     * Pasa a precargar solo {@code urls}: cancela las precargas que ya no están y pide las nuevas.
+     */
+    void prefetch(Collection<String> urls) {
+        Iterator<Map.Entry<String, Target<Drawable>>> iterator = mRequests.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Target<Drawable>> entry = iterator.next();
+            if (!urls.contains(entry.getKey())) {
+                mGlide.clear(entry.getValue());
+                iterator.remove();
+            }
+        }
+        for (String url : urls) {
+            // Las URLs que fallaron hace poco tampoco se precargan, y las precargas que fallan
+            // se registran igual que las de las tarjetas
+            String model = FailedImageUrls.unlessBlocked(url);
+            if (model != null && !mRequests.containsKey(url)) {
+                mRequests.put(url, mGlide.load(new ChannelLogo(model))
+                        .apply(CardPresenter.CARD_IMAGE_OPTIONS)
+                        .priority(Priority.LOW)
+                        .listener(FailedImageUrls.<Drawable>listener())
+                        .preload());
+            }
+        }
+    }
+
+    // Cancela todas las precargas, por ejemplo al salir de la pantalla
+    void cancelAll() {
+        for (Target<Drawable> target : mRequests.values()) {
+            mGlide.clear(target);
+        }
+        mRequests.clear();
+    }
+}
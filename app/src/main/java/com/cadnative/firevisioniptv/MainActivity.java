@@ -32,20 +32,26 @@ public class MainActivity extends FragmentActivity {
      */
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        StartupTrace.begin(StartupTrace.MAIN_ACTIVITY);
         super.onCreate(savedInstanceState);
 
         // Establece el layout XML que define la UI de esta actividad
         setContentView(R.layout.activity_main);
 
         // Inicializa Firebase para esta aplicación, debe hacerse antes de usar Firebase
+        StartupTrace.begin(StartupTrace.FIREBASE);
         FirebaseApp.initializeApp(this);
+        StartupTrace.end(StartupTrace.FIREBASE);
 
         // Si no hay estado previo guardado (es la primera vez que se crea la actividad)
         if (savedInstanceState == null) {
             // Reemplaza el contenedor (R.id.main_browse_fragment) con el fragmento MainFragment
+            StartupTrace.begin(StartupTrace.COMMIT_FRAGMENT);
             getSupportFragmentManager().beginTransaction()
                     .replace(R.id.main_browse_fragment, new MainFragment())
                     .commitNow();  // commitNow asegura que el cambio se aplique inmediatamente
+            StartupTrace.end(StartupTrace.COMMIT_FRAGMENT);
         }
+        StartupTrace.end(StartupTrace.MAIN_ACTIVITY);
     }
 }
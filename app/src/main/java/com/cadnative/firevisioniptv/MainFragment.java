@@ -3,6 +3,7 @@ package com.cadnative.firevisioniptv;
 import android.content.Intent;
 import android.content.pm.PackageInfo;
 import android.content.res.AssetManager;
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
@@ -19,13 +20,16 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.leanback.app.BackgroundManager;
 import androidx.leanback.app.BrowseSupportFragment;
+import androidx.leanback.app.RowsSupportFragment;
 import androidx.leanback.widget.ArrayObjectAdapter;
+import androidx.leanback.widget.DiffCallback;
 import androidx.leanback.widget.HeaderItem;
 import androidx.leanback.widget.HorizontalGridView;
 import androidx.leanback.widget.ImageCardView;
 import androidx.leanback.widget.ListRow;
 import androidx.leanback.widget.ListRowPresenter;
 import androidx.leanback.widget.ListRowView;
+import androidx.leanback.widget.ObjectAdapter;
 import androidx.leanback.widget.OnItemViewClickedListener;
 import androidx.leanback.widget.OnItemViewSelectedListener;
 import androidx.leanback.widget.Presenter;
@@ -34,48 +38,101 @@ import androidx.leanback.widget.RowPresenter;
 import androidx.core.app.ActivityOptionsCompat;
 import androidx.core.content.ContextCompat;
 import androidx.leanback.widget.VerticalGridView;
+import androidx.recyclerview.widget.DiffUtil;
 
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.util.LruCache;
 import android.view.Gravity;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.target.SimpleTarget;
+import com.bumptech.glide.request.target.CustomTarget;
 import com.bumptech.glide.request.transition.Transition;
+import com.cadnative.firevisioniptv.catalog.CategoryIndex;
+import com.cadnative.firevisioniptv.catalog.ChannelTable;
+import com.cadnative.firevisioniptv.catalog.LongIntIndex;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MainFragment extends BrowseSupportFragment {
     // TAG para logs
     private static final String TAG = "MainFragment";
 
-    // Constantes para la actualización del fondo, tamaño de items y máximo columnas en grid
+    // Constantes para la actualización del fondo y tamaño de items
     private static final int BACKGROUND_UPDATE_DELAY = 300;
     private static final int GRID_ITEM_WIDTH = 200;
     private static final int GRID_ITEM_HEIGHT = 200;
-    private static final int MAX_NUM_COLS =5;
 
     // Handler para ejecutar tareas en el hilo UI
     private final Handler mHandler = new Handler(Looper.myLooper());
     private Drawable mDefaultBackground; // Drawable por defecto para fondo
     private DisplayMetrics mMetrics;     // Para obtener tamaño pantalla
-    private Timer mBackgroundTimer;      // Temporizador para actualizar fondo
-    private String mBackgroundUri;       // Uri de la imagen actual de fondo
+    private String mBackgroundUri;       // Uri de la imagen actual de fondo (o la que se está cargando)
+    private String mPendingBackgroundUri; // Uri que se cargará al terminar la espera de BACKGROUND_UPDATE_DELAY
+    private CustomTarget<Bitmap> mBackgroundTarget; // Carga de fondo en curso, o null
+
+    // Fondos ya decodificados al tamaño de la pantalla; son pocas URLs, así que casi siempre aciertan
+    private static final int BACKGROUND_CACHE_SCREENS = 3;
+    private LruCache<String, Bitmap> mBackgroundCache;
     private BackgroundManager mBackgroundManager;  // Manager para el fondo
 
     private AssetManager assetManager;   // Para manejar recursos dentro de assets
 
+    // Clave del grupo para películas sin grupo; siempre se ordena al final
+    private static final String OTHER_GROUP = "zzz_other";
+
+    // Orden alfabético de los grupos, dejando el grupo "otros" al final
+    private static final Comparator<String> GROUP_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            if (a.equals(b)) {
+                return 0;
+            } else if (OTHER_GROUP.equals(a)) {
+                return 1;
+            } else if (OTHER_GROUP.equals(b)) {
+                return -1;
+            }
+            return a.compareTo(b);
+        }
+    };
+
+    // Tarjetas cuyos logos se precargan: las siguientes de la fila enfocada y las primeras
+    // visibles de las filas de arriba y de abajo
+    private static final int PREFETCH_AHEAD = 8;
+    private static final int PREFETCH_ADJACENT = 5;
+
+    // Hilo de fondo donde se agrupan las películas y se arman las filas
+    private static final ExecutorService sRowBuilder = Executors.newSingleThreadExecutor();
+
+    private ArrayObjectAdapter mRowsAdapter;  // Adapter con todas las filas que se muestran
+    private CardPresenter mCardPresenter;     // Presenter compartido por todas las filas
+    private LogoPrefetcher mLogoPrefetcher;   // Precarga de logos según el foco
+    private TreeMap<String, GroupRows> mGroupedRows = new TreeMap<>(GROUP_ORDER); // Fila de cada grupo
+    private boolean mFirstRowSelected;        // true cuando ya se seleccionó la primera fila
+    private boolean mLoadFinished;            // true cuando ya se muestran todos los canales
+    private ChannelRepository mRepository;     // Fuente de canales compartida por toda la app
+    private long mShownVersion;               // Versión de la instantánea que muestran las filas
+
+    // Armado de filas en curso y la última instantánea que llegó mientras tanto
+    private Future<?> mPendingBuild;
+    private ChannelRepository.Snapshot mQueuedSnapshot;
+    private long mFailedBuildVersion;          // Última versión cuyo armado falló (se reintenta una vez)
+
     @Override
     public void onActivityCreated(Bundle savedInstanceState) {
         Log.i(TAG, "onCreate");
@@ -101,120 +158,412 @@ public class MainFragment extends BrowseSupportFragment {
         // mHandler.postDelayed(() -> selectFirstItem(), 500);
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Al volver a la pantalla se busca una versión nueva de la lista; solo llega el delta
+        if (mLoadFinished && mPendingBuild == null) {
+            mRepository.refresh();
+        }
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
-        // Cancelar el timer del fondo para evitar leaks
-        if (null != mBackgroundTimer) {
-            Log.d(TAG, "onDestroy: " + mBackgroundTimer.toString());
-            mBackgroundTimer.cancel();
+        // Dejar de recibir instantáneas después de destruir el fragmento
+        if (mRepository != null) {
+            mRepository.unsubscribe(mSnapshotListener);
+        }
+        // Cancelar el armado de filas pendiente; si ya terminó, su resultado se descarta
+        if (mPendingBuild != null) {
+            mPendingBuild.cancel(true);
+            mPendingBuild = null;
+        }
+        mQueuedSnapshot = null;
+        mRowsAdapter = null;
+        if (mLogoPrefetcher != null) {
+            mLogoPrefetcher.cancelAll();
+        }
+        // Cancelar la actualización de fondo pendiente para evitar leaks
+        mHandler.removeCallbacks(mBackgroundUpdate);
+        if (mBackgroundCache != null) {
+            mBackgroundCache.evictAll();
         }
     }
 
     /**
      * Método que carga las filas en el BrowseSupportFragment.
-     * Agrupa películas por su grupo, las ordena alfabéticamente y las divide en filas con máximo 5 columnas.
+     * Las filas de cada instantánea del repositorio se arman en un hilo de fondo y se aplican
+     * al adapter con un diff, así las primeras filas se pueden ver y enfocar antes de
+     * terminar la carga sin que el hilo principal agrupe ni ordene canales, y sin perder
+     * las tarjetas ya vinculadas ni el foco.
      */
     private void loadRows() {
-        // Obtener lista completa de películas desde assets
-        List<Movie> list = MovieList.setupMovies(assetManager);
-        ArrayObjectAdapter rowsAdapter = new ArrayObjectAdapter(new ListRowPresenter());
-        CardPresenter cardPresenter = new CardPresenter();
-
-        // Usar TreeMap para ordenar grupos alfabéticamente
-        Map<String, List<Movie>> groupedMovies = new TreeMap<>();
-
-        // Agrupar películas por su grupo
-        for (Movie movie : list) {
-            String group = movie.getGroup();
-            if (group == null || group.isEmpty()) {
-                group = "zzz_other";  // Grupo "otros" para que quede al final
+        StartupTrace.begin(StartupTrace.LOAD_ROWS);
+        StartupTrace.beginAsync(StartupTrace.FIRST_ROWS);
+        mCardPresenter = new CardPresenter();
+        // Todas las filas comparten las tarjetas recicladas
+        mRowsAdapter = new ArrayObjectAdapter(new ChannelRowPresenter(mCardPresenter));
+        mLogoPrefetcher = new LogoPrefetcher(Glide.with(this));
+        setAdapter(mRowsAdapter);
+
+        // La lista se parsea una sola vez por proceso; si ya está cargada llega de inmediato
+        mRepository = FirevisionApplication.getChannelRepository();
+        mRepository.subscribe(mSnapshotListener);
+        mRepository.load();
+        StartupTrace.end(StartupTrace.LOAD_ROWS);
+    }
+
+    /**
+     * Lleva las filas a la nueva instantánea. Un delta de una actualización incremental que
+     * sigue a la versión mostrada se aplica directamente (toca pocas filas); cualquier otro
+     * cambio (lotes de la carga inicial) vuelve a armar todas las filas en el hilo de fondo.
+     * Si ya hay un armado en curso, solo se guarda la instantánea más nueva para el siguiente.
+     */
+    private final ChannelRepository.Listener mSnapshotListener = new ChannelRepository.Listener() {
+        @Override
+        public void onSnapshot(ChannelRepository.Snapshot snapshot) {
+            if (mRowsAdapter == null) {
+                return;
             }
-            if (!groupedMovies.containsKey(group)) {
-                groupedMovies.put(group, new ArrayList<>());
+            if (mPendingBuild != null) {
+                mQueuedSnapshot = snapshot;
+            } else if (snapshot.getDelta() != null && mShownVersion > 0
+                    && snapshot.getVersion() == mShownVersion + 1) {
+                applyDelta(snapshot);
+                mShownVersion = snapshot.getVersion();
+            } else {
+                buildRows(snapshot);
             }
-            groupedMovies.get(group).add(movie);
         }
+    };
 
-        // Extraer el grupo "otros" para manejarlo separado
-        List<Movie> otherMovies = groupedMovies.remove("zzz_other");
+    /**
+     * Arma el modelo de filas de la instantánea en el hilo de fondo y lo muestra al terminar.
+     * Si el armado falla, se avisa igual al hilo principal (buildFailed) para liberar mPendingBuild;
+     * de lo contrario las instantáneas siguientes quedarían esperando un armado que no termina.
+     */
+    private void buildRows(final ChannelRepository.Snapshot snapshot) {
+        // Mientras haya un armado en curso las filas mostradas no cambian (los deltas esperan)
+        final TreeMap<String, GroupRows> shown = new TreeMap<>(mGroupedRows);
+        mPendingBuild = sRowBuilder.submit(new Runnable() {
+            @Override
+            public void run() {
+                final RowModel model;
+                try {
+                    model = RowModel.build(snapshot, shown);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Cannot build rows for version " + snapshot.getVersion(), e);
+                    mHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            buildFailed(snapshot);
+                        }
+                    });
+                    return;
+                }
+                if (model == null) {
+                    return;  // Cancelado desde onDestroy, que ya liberó mPendingBuild
+                }
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        showRows(snapshot, model);
+                    }
+                });
+            }
+        });
+    }
 
-        // Iterar cada grupo para crear filas de hasta MAX_NUM_COLS columnas
-        for (Map.Entry<String, List<Movie>> entry : groupedMovies.entrySet()) {
-            String group = entry.getKey();
-            List<Movie> moviesInGroup = entry.getValue();
+    /**
+     * Falló el armado de filas de la instantánea: se vuelve a intentar una vez, y si vuelve a
+     * fallar se sigue con la próxima instantánea que llegue (las filas mostradas no cambian).
+     */
+    private void buildFailed(ChannelRepository.Snapshot snapshot) {
+        if (mRowsAdapter == null || mPendingBuild == null) {
+            return;  // El fragmento se destruyó antes de terminar
+        }
+        mPendingBuild = null;
+        if (mQueuedSnapshot == null && mFailedBuildVersion != snapshot.getVersion()) {
+            mFailedBuildVersion = snapshot.getVersion();
+            buildRows(snapshot);
+            return;
+        }
+        buildQueued();
+    }
 
-            // Número de filas para este grupo
-            int numRows = (moviesInGroup.size() + MAX_NUM_COLS - 1) / MAX_NUM_COLS;
+    // Arma la última instantánea que llegó durante el armado anterior, si es más nueva que la mostrada
+    private void buildQueued() {
+        ChannelRepository.Snapshot queued = mQueuedSnapshot;
+        mQueuedSnapshot = null;
+        if (queued != null && queued.getVersion() > mShownVersion) {
+            buildRows(queued);
+        }
+    }
 
-            // Crear cada fila
-            for (int i = 0; i < numRows; i++) {
-                ArrayObjectAdapter listRowAdapter = new ArrayObjectAdapter(cardPresenter);
+    /**
+     * Lleva las filas mostradas al modelo: los grupos que ya tenían fila la conservan y solo
+     * reciben los rangos que cambiaron; el adapter principal se actualiza con setItems.
+     * Si mientras tanto llegó otra instantánea, arma la siguiente.
+     */
+    private void showRows(ChannelRepository.Snapshot snapshot, RowModel model) {
+        if (mRowsAdapter == null || mPendingBuild == null) {
+            return;  // El fragmento se destruyó antes de terminar
+        }
+        mPendingBuild = null;
+
+        List<ListRow> rows = new ArrayList<>(model.groups.size());
+        for (Map.Entry<String, GroupRows> entry : model.groups.entrySet()) {
+            GroupRows groupRows = entry.getValue();
+            GroupRows previous = mGroupedRows.get(entry.getKey());
+            if (previous != null && previous.row != null) {
+                groupRows.row = previous.row;
+                ((ChannelRowAdapter) groupRows.row.getAdapter()).setMovies(groupRows.movies, groupRows.diff);
+            } else {
+                groupRows.row = newRow(groupRows);
+            }
+            groupRows.diff = null;
+            rows.add(groupRows.row);
+        }
+        mGroupedRows = model.groups;
+        mRowsAdapter.setItems(rows, ROW_DIFF);
+        mShownVersion = snapshot.getVersion();
+
+        // Seleccionar la primera fila cuando llegan las primeras filas
+        if (!mFirstRowSelected && mRowsAdapter.size() > 0) {
+            mFirstRowSelected = true;
+            setSelectedPosition(0);
+            // La primera fila ya tiene canales: fin del arranque
+            StartupTrace.reportFullyDrawn(getActivity());
+        }
 
-                // Calcular índices inicio y fin de películas para esta fila
-                int startIndex = i * MAX_NUM_COLS;
-                int endIndex = Math.min((i + 1) * MAX_NUM_COLS, moviesInGroup.size());
+        if (snapshot.isComplete() && !mLoadFinished) {
+            mLoadFinished = true;
+            Log.i(TAG, "loadRows: " + snapshot.getMovies().size() + " channels in " + mRowsAdapter.size() + " rows");
+        }
 
-                // Añadir las películas a la fila
-                listRowAdapter.addAll(0, moviesInGroup.subList(startIndex, endIndex));
+        buildQueued();
+    }
 
-                // Crear texto para el encabezado de la fila
-                String headerText = group;
-                if (numRows > 1) {
-                    int firstMovieIndex = startIndex + 1;  // índice 1-based
-                    int lastMovieIndex = endIndex;
-                    headerText += " (" + firstMovieIndex + "-" + lastMovieIndex + ")";
-                } else {
-                    headerText += " (" + moviesInGroup.size() + ")";
-                }
+    // Las filas que se conservan son el mismo objeto; su contenido lo actualiza su propio adapter
+    private static final DiffCallback<ListRow> ROW_DIFF = new DiffCallback<ListRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ListRow oldItem, @NonNull ListRow newItem) {
+            return oldItem == newItem;
+        }
 
-                // Crear HeaderItem y agregar la fila al adapter principal
-                HeaderItem header = new HeaderItem(0, headerText);
-                rowsAdapter.add(new ListRow(header, listRowAdapter));
-            }
+        @Override
+        public boolean areContentsTheSame(@NonNull ListRow oldItem, @NonNull ListRow newItem) {
+            return true;
         }
+    };
 
-        // Manejar el grupo "otros" igual que los demás
-        if (otherMovies != null && !otherMovies.isEmpty()) {
-            int numRows = (otherMovies.size() + MAX_NUM_COLS - 1) / MAX_NUM_COLS;
+    private ListRow newRow(GroupRows groupRows) {
+        return new ListRow(new HeaderItem(0, groupRows.title),
+                new ChannelRowAdapter(mCardPresenter, groupRows.movies));
+    }
 
-            for (int i = 0; i < numRows; i++) {
-                ArrayObjectAdapter listRowAdapter = new ArrayObjectAdapter(cardPresenter);
+    /**
+     * Grupos armados en el hilo de fondo, con el diff de cada uno contra lo que se muestra.
+     */
+    private static final class RowModel {
+        final TreeMap<String, GroupRows> groups;
 
-                int startIndex = i * MAX_NUM_COLS;
-                int endIndex = Math.min((i + 1) * MAX_NUM_COLS, otherMovies.size());
+        private RowModel(TreeMap<String, GroupRows> groups) {
+            this.groups = groups;
+        }
 
-                listRowAdapter.addAll(0, otherMovies.subList(startIndex, endIndex));
+        /**
+         * Arma un grupo por categoría a partir del índice de categorías de la tabla, con las
+         * categorías ordenadas alfabéticamente y los canales sin categoría al final ("otros").
+         * Un canal con varias categorías ("Animation;Kids") aparece en cada una: las filas
+         * comparten la misma película. Cada grupo es una fila que se desplaza horizontalmente
+         * y sus tarjetas se crean a medida que aparecen en pantalla (ver ChannelRowAdapter).
+         * Para los grupos que ya se muestran calcula también el diff de su lista.
+         * No toca nada del fragmento, así que se puede llamar desde cualquier hilo.
+         * @param shown grupos que se muestran ahora; no cambian mientras dura el armado
+         * @return null si el hilo se interrumpió (armado cancelado)
+         */
+        static RowModel build(ChannelRepository.Snapshot snapshot, TreeMap<String, GroupRows> shown) {
+            TreeMap<String, GroupRows> groups = new TreeMap<>(GROUP_ORDER);
+            List<Movie> movies = snapshot.getMovies();
+            ChannelTable table = snapshot.getTable();
+            if (table != null) {
+                CategoryIndex categories = table.getCategories();
+                int count = categories.getCategoryCount();
+                for (int ordinal = 0; ordinal < count; ordinal++) {
+                    String name = categories.getName(ordinal);
+                    addRows(groups, name, name, categories.getRows(ordinal, movies.size()), movies);
+                }
+                addRows(groups, OTHER_GROUP, "Other", categories.getUncategorizedRows(movies.size()), movies);
+            }
 
-                String headerText = "Other";
-                if (numRows > 1) {
-                    int firstMovieIndex = startIndex + 1;
-                    int lastMovieIndex = endIndex;
-                    headerText += " (" + firstMovieIndex + "-" + lastMovieIndex + ")";
-                } else {
-                    headerText += " (" + otherMovies.size() + ")";
+            for (Map.Entry<String, GroupRows> entry : groups.entrySet()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return null;
+                }
+                GroupRows previous = shown.get(entry.getKey());
+                if (previous != null) {
+                    entry.getValue().diff = ChannelRowAdapter.diff(previous.movies, entry.getValue().movies);
                 }
+            }
+            return new RowModel(groups);
+        }
 
-                HeaderItem header = new HeaderItem(0, headerText);
-                rowsAdapter.add(new ListRow(header, listRowAdapter));
+        // Agrega el grupo con las películas de esas filas de la tabla, si tiene alguna
+        private static void addRows(TreeMap<String, GroupRows> groups, String key, String title,
+                                    int[] rows, List<Movie> movies) {
+            if (rows.length == 0) {
+                return;
+            }
+            GroupRows groupRows = new GroupRows(title);
+            for (int row : rows) {
+                groupRows.movies.add(movies.get(row));
             }
+            groups.put(key, groupRows);
         }
+    }
 
-        // Se podría agregar aquí filas extras con otras configuraciones, pero están comentadas
+    /**
+     * Aplica una actualización incremental. Todas las películas de la instantánea son vistas
+     * nuevas (sobre la tabla nueva), así que cada grupo pasa a las vistas nuevas buscándolas por id;
+     * solo los grupos con canales agregados, eliminados o modificados avisan cambios a su fila,
+     * y el diff de la fila (MOVIE_DIFF) solo vuelve a vincular las tarjetas cuyo contenido cambió.
+     */
+    private void applyDelta(ChannelRepository.Snapshot snapshot) {
+        MovieList.Delta delta = snapshot.getDelta();
+
+        // Grupos que cambian, y los ids de los canales modificados
+        Set<String> touchedKeys = new HashSet<>();
+        LongIntIndex changedIds = new LongIntIndex(delta.changedNew.size());
+        for (Movie movie : delta.removed) {
+            touchedKeys.addAll(groupKeys(movie));
+        }
+        for (int i = 0; i < delta.changedOld.size(); i++) {
+            touchedKeys.addAll(groupKeys(delta.changedOld.get(i)));
+            touchedKeys.addAll(groupKeys(delta.changedNew.get(i)));
+            changedIds.put(delta.changedNew.get(i).getId(), i);
+        }
+        for (Movie movie : delta.added) {
+            touchedKeys.addAll(groupKeys(movie));
+        }
 
-        // Asignar el adapter con todas las filas a la vista
-        setAdapter(rowsAdapter);
+        // Cada grupo con las vistas nuevas, sin los eliminados ni los modificados que dejaron la categoría
+        Map<GroupRows, List<Movie>> previousMovies = new HashMap<>();
+        for (Map.Entry<String, GroupRows> entry : mGroupedRows.entrySet()) {
+            GroupRows groupRows = entry.getValue();
+            boolean touched = touchedKeys.contains(entry.getKey());
+            List<Movie> movies = new ArrayList<>(groupRows.movies.size());
+            for (Movie movie : groupRows.movies) {
+                Movie current = snapshot.findById(movie.getId());
+                if (current != null && (!touched || changedIds.get(current.getId()) == LongIntIndex.MISSING
+                        || groupKeys(current).contains(entry.getKey()))) {
+                    movies.add(current);
+                }
+            }
+            previousMovies.put(groupRows, groupRows.movies);
+            groupRows.movies = movies;
+        }
 
-        // Seleccionar la primera fila y el primer item si existen
-        if (rowsAdapter.size() > 0) {
-            ListRow firstRow = (ListRow) rowsAdapter.get(0);
-            if (firstRow != null && firstRow.getAdapter() != null && firstRow.getAdapter().size() > 0) {
-                Object firstItem = firstRow.getAdapter().get(0);
-                if (firstItem != null) {
-                    setSelectedPosition(0); // Seleccionar la primera fila
+        // Los modificados que entraron en una categoría y los agregados van al final del grupo
+        for (int i = 0; i < delta.changedOld.size(); i++) {
+            List<String> oldKeys = groupKeys(delta.changedOld.get(i));
+            Movie newMovie = delta.changedNew.get(i);
+            for (String key : groupKeys(newMovie)) {
+                if (!oldKeys.contains(key)) {
+                    group(key).movies.add(newMovie);
                 }
             }
         }
+        for (Movie movie : delta.added) {
+            for (String key : groupKeys(movie)) {
+                group(key).movies.add(movie);
+            }
+        }
+
+        // En orden, porque la posición de cada fila depende de las anteriores
+        for (Map.Entry<String, GroupRows> entry : new ArrayList<>(mGroupedRows.entrySet())) {
+            GroupRows groupRows = entry.getValue();
+            List<Movie> previous = previousMovies.get(groupRows);
+            if (touchedKeys.contains(entry.getKey())) {
+                syncRow(groupRows, previous != null ? previous : Collections.<Movie>emptyList());
+            } else if (groupRows.row != null) {
+                // Mismos canales con el mismo contenido: la fila no tiene nada que volver a vincular
+                ((ChannelRowAdapter) groupRows.row.getAdapter()).replaceMovies(groupRows.movies);
+            }
+        }
+    }
+
+    // Grupo de la clave, creándolo (todavía sin fila) si no existe
+    private GroupRows group(String key) {
+        GroupRows groupRows = mGroupedRows.get(key);
+        if (groupRows == null) {
+            groupRows = new GroupRows(OTHER_GROUP.equals(key) ? "Other" : key);
+            mGroupedRows.put(key, groupRows);
+        }
+        return groupRows;
+    }
+
+    /**
+     * Lleva la fila del grupo a su lista de películas: la agrega si el grupo es nuevo,
+     * la quita si quedó vacío y si no le avisa al adapter solo los canales que cambiaron.
+     * @param previous lista que mostraba la fila antes del delta
+     */
+    private void syncRow(GroupRows groupRows, List<Movie> previous) {
+        int position = rowsBefore(groupRows);
+        if (groupRows.movies.isEmpty()) {
+            if (groupRows.row != null) {
+                mRowsAdapter.removeItems(position, 1);
+            }
+            mGroupedRows.values().remove(groupRows);
+            return;
+        }
+
+        if (groupRows.row == null) {
+            groupRows.row = newRow(groupRows);
+            mRowsAdapter.add(position, groupRows.row);
+            return;
+        }
+
+        ((ChannelRowAdapter) groupRows.row.getAdapter())
+                .setMovies(groupRows.movies, ChannelRowAdapter.diff(previous, groupRows.movies));
+    }
+
+    // Categorías de la película; las que no tienen ninguna van al grupo "otros"
+    private static List<String> groupKeys(Movie movie) {
+        List<String> keys = CategoryIndex.split(movie.getGroup());
+        if (keys.isEmpty()) {
+            keys.add(OTHER_GROUP);
+        }
+        return keys;
+    }
+
+    // Posición de la fila del grupo: cantidad de grupos con fila ordenados antes que él
+    private int rowsBefore(GroupRows target) {
+        int position = 0;
+        for (GroupRows groupRows : mGroupedRows.values()) {
+            if (groupRows == target) {
+                break;
+            }
+            if (groupRows.row != null) {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Fila de un grupo dentro del adapter principal.
+     */
+    private static final class GroupRows {
+        final String title;                         // Texto del encabezado
+        List<Movie> movies = new ArrayList<>();     // Películas del grupo, en orden
+        ListRow row;                                // Fila del grupo; null hasta que se agrega
+        DiffUtil.DiffResult diff;                   // Cambios respecto del grupo mostrado (solo al armar)
+
+        GroupRows(String title) {
+            this.title = title;
+        }
     }
 
     /**
@@ -228,6 +577,15 @@ public class MainFragment extends BrowseSupportFragment {
         mDefaultBackground = ContextCompat.getDrawable(getContext(), R.drawable.default_background);
         mMetrics = new DisplayMetrics();
         getActivity().getWindowManager().getDefaultDisplay().getMetrics(mMetrics);
+
+        // El tamaño de la caché se mide en bytes: unas pocas imágenes del tamaño de la pantalla
+        int screenBytes = mMetrics.widthPixels * mMetrics.heightPixels * 4;
+        mBackgroundCache = new LruCache<String, Bitmap>(BACKGROUND_CACHE_SCREENS * screenBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
     }
 
     /**
@@ -282,28 +640,90 @@ public class MainFragment extends BrowseSupportFragment {
     }
 
     /**
-     * Actualiza el fondo con la imagen del URI dado usando Glide
+     * Pide cambiar el fondo a la imagen del URI dado. El cambio espera BACKGROUND_UPDATE_DELAY
+     * sin nuevas selecciones, así al mantener presionado el DPAD no se decodifica una imagen por tarjeta.
+     * @param uri URL de la imagen de fondo
+     */
+    private void scheduleBackgroundUpdate(String uri) {
+        mPendingBackgroundUri = uri;
+        mHandler.removeCallbacks(mBackgroundUpdate);
+        if (uri.equals(mBackgroundUri)) {
+            return;  // Ya se muestra (o se está cargando) ese fondo
+        }
+        // Si el foco se movió, la carga anterior ya no hace falta
+        cancelBackgroundLoad();
+        mHandler.postDelayed(mBackgroundUpdate, BACKGROUND_UPDATE_DELAY);
+    }
+
+    private final Runnable mBackgroundUpdate = new Runnable() {
+        @Override
+        public void run() {
+            if (mPendingBackgroundUri != null && isAdded()) {
+                updateBackground(mPendingBackgroundUri);
+            }
+        }
+    };
+
+    /**
+     * Actualiza el fondo con la imagen del URI dado, desde la caché o cargándola con Glide
      * @param uri URL de la imagen de fondo
      */
     private void updateBackground(String uri) {
+        if (uri.equals(mBackgroundUri)) {
+            return;
+        }
+        mBackgroundUri = uri;
+
+        Bitmap cached = mBackgroundCache.get(uri);
+        if (cached != null) {
+            mBackgroundManager.setBitmap(cached);
+            return;
+        }
+        if (FailedImageUrls.isBlocked(uri)) {
+            // Falló hace poco: el fondo por defecto, sin volver a pedirla
+            mBackgroundManager.setDrawable(mDefaultBackground);
+            return;
+        }
+
         int width = mMetrics.widthPixels;
         int height = mMetrics.heightPixels;
+        final String loadingUri = uri;
+        mBackgroundTarget = new CustomTarget<Bitmap>(width, height) {
+            @Override
+            public void onResourceReady(@NonNull Bitmap resource,
+                                        @Nullable Transition<? super Bitmap> transition) {
+                // Esta carga ya terminó: no se cancela después, así Glide no recicla el bitmap guardado
+                mBackgroundTarget = null;
+                mBackgroundCache.put(loadingUri, resource);
+                mBackgroundManager.setBitmap(resource);
+            }
 
-        // Si el URI es diferente al actual, cargar nueva imagen
-        if (uri != null && !uri.equals(mBackgroundUri)) {
-            mBackgroundUri = uri;
+            @Override
+            public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                mBackgroundTarget = null;
+                mBackgroundManager.setDrawable(errorDrawable);
+            }
 
-            Glide.with(getContext())
-                    .load(uri)
-                    .centerCrop()
-                    .error(mDefaultBackground)
-                    .into(new SimpleTarget<Drawable>(width, height) {
-                        @Override
-                        public void onResourceReady(@NonNull Drawable resource,
-                                                    @Nullable Transition<? super Drawable> transition) {
-                            mBackgroundManager.setDrawable(resource);
-                        }
-                    });
+            @Override
+            public void onLoadCleared(@Nullable Drawable placeholder) {
+                // El fondo ya se copió al BackgroundManager; no hay vista que limpiar
+            }
+        };
+        Glide.with(this)
+                .asBitmap()
+                .load(uri)
+                .centerCrop()
+                .error(mDefaultBackground)
+                .listener(FailedImageUrls.<Bitmap>listener())
+                .into(mBackgroundTarget);
+    }
+
+    // Cancela la carga de fondo en curso, si la hay, y olvida su URI para poder pedirla de nuevo
+    private void cancelBackgroundLoad() {
+        if (mBackgroundTarget != null) {
+            Glide.with(this).clear(mBackgroundTarget);
+            mBackgroundTarget = null;
+            mBackgroundUri = null;
         }
     }
 
@@ -318,7 +738,7 @@ public class MainFragment extends BrowseSupportFragment {
                 Movie movie = (Movie) item;
                 // Crear intent para detalle y pasar extras con info del item
                 Intent intent = new Intent(getActivity(), DetailsActivity.class);
-                intent.putExtra(DetailsActivity.MOVIE, movie);
+                intent.putExtra(DetailsActivity.CHANNEL_ID, movie.getId());
 
                 // Crear animación de transición
                 Bundle bundle = ActivityOptionsCompat.makeSceneTransitionAnimation(
@@ -331,8 +751,50 @@ public class MainFragment extends BrowseSupportFragment {
         }
     }
 
+    /**
+     * Precarga los logos de las tarjetas que probablemente se vean después de este foco:
+     * las siguientes de la fila enfocada y las visibles de las filas vecinas.
+     */
+    private void prefetchLogos(Row row, RowPresenter.ViewHolder rowViewHolder) {
+        int rowPosition = mRowsAdapter != null ? mRowsAdapter.indexOf(row) : -1;
+        if (rowPosition < 0) {
+            return;
+        }
+        Set<String> urls = new LinkedHashSet<>();
+        addLogos(rowPosition, selectedCard(rowViewHolder) + 1, PREFETCH_AHEAD, urls);
+        RowsSupportFragment rowsFragment = getRowsSupportFragment();
+        for (int neighbor = rowPosition - 1; neighbor <= rowPosition + 1; neighbor += 2) {
+            if (neighbor >= 0 && neighbor < mRowsAdapter.size()) {
+                RowPresenter.ViewHolder holder = rowsFragment != null ? rowsFragment.getRowViewHolder(neighbor) : null;
+                addLogos(neighbor, selectedCard(holder), PREFETCH_ADJACENT, urls);
+            }
+        }
+        mLogoPrefetcher.prefetch(urls);
+    }
+
+    // Tarjeta seleccionada dentro de una fila, o 0 si la fila no tiene vista todavía
+    private static int selectedCard(RowPresenter.ViewHolder rowViewHolder) {
+        if (rowViewHolder instanceof ListRowPresenter.ViewHolder) {
+            return Math.max(0, ((ListRowPresenter.ViewHolder) rowViewHolder).getGridView().getSelectedPosition());
+        }
+        return 0;
+    }
+
+    // Agrega las URLs de logo de hasta count tarjetas de la fila, desde la posición start
+    private void addLogos(int rowPosition, int start, int count, Set<String> urls) {
+        ObjectAdapter cards = ((ListRow) mRowsAdapter.get(rowPosition)).getAdapter();
+        int end = Math.min(cards.size(), start + count);
+        for (int i = start; i < end; i++) {
+            String url = ((Movie) cards.get(i)).getCardImageUrl();
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+    }
+
     /**
      * Listener para eventos de selección de items, para actualizar el fondo
+     * y precargar los logos cercanos
      */
     private final class ItemViewSelectedListener implements OnItemViewSelectedListener {
         @Override
@@ -342,9 +804,12 @@ public class MainFragment extends BrowseSupportFragment {
                 Movie movie = (Movie) item;
                 String bgUri = movie.getBackgroundImageUrl();
                 if (bgUri != null) {
-                    updateBackground(bgUri);
+                    scheduleBackgroundUpdate(bgUri);
                 }
             }
+            if (row != null) {
+                prefetchLogos(row, rowViewHolder);
+            }
         }
     }
 
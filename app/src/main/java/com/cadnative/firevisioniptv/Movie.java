@@ -1,99 +1,119 @@
 package com.cadnative.firevisioniptv;
 
-import java.io.Serializable;
+import com.cadnative.firevisioniptv.catalog.ChannelTable;
+
+import java.util.List;
 
 /*
  * Clase Movie que representa una entidad de video dentro de la aplicación.
  * Contiene información básica sobre un video como título, descripción,
  * imágenes asociadas y URL para reproducirlo.
  *
- * Implementa Serializable para permitir que los objetos de esta clase
- * puedan ser convertidos en un flujo de bytes, facilitando su paso
- * entre actividades o almacenamiento.
+ * Las películas de la lista son vistas livianas e inmutables sobre una fila de un ChannelTable:
+ * no guardan Strings propios, y cada getter lee (y decodifica) el valor de la tabla. Como la
+ * tabla tampoco cambia, una película publicada en una instantánea se puede leer desde
+ * cualquier hilo; una versión nueva de la lista crea películas nuevas en lugar de modificarlas.
+ * Entre actividades no se pasa la película sino su id (ver getId).
  */
-public class Movie implements Serializable {
+public class Movie {
 
-    // Identificador único para cada video
-    static final long serialVersionUID = 727566175075960653L;
+    private final ChannelTable table;      // Tabla con los datos del canal
+    private final int row;                 // Fila del canal en la tabla
+    private final String bgImageUrl;       // URL de la imagen de fondo (una de unas pocas URLs compartidas)
 
-    private long id;                 // ID único del video
-    private String title;            // Título del video
-    private String description;      // Descripción o sinopsis del video
-    private String group;            // Grupo o categoría del video (ej. género, canal)
+    // Textos y logo de la tarjeta, decodificados la primera vez que se muestra (ver getCard)
+    private Card card;
 
-    private String bgImageUrl;       // URL de la imagen de fondo para la interfaz
-    private String cardImageUrl;     // URL de la imagen miniatura o tarjeta que se muestra en listas
-    private String videoUrl;         // URL del archivo de video para reproducción
-    private String studio;           // Nombre del estudio o productora
+    /**
+     * Lo que muestra la tarjeta del canal. Los getters de la vista decodifican la fila en cada
+     * llamada; la tarjeta lo hace una sola vez, así volver a vincular un canal ya mostrado
+     * (al volver por una fila o cuando la fila avisa cambios) no crea objetos.
+     */
+    static final class Card {
+        final String title;
+        final String studio;
+        final ChannelLogo logo;      // null si el canal no tiene logo
 
-    // Constructor vacío, necesario para algunas operaciones como serialización o frameworks
-    public Movie() {
+        Card(String title, String studio, String logoUrl) {
+            this.title = title;
+            this.studio = studio;
+            this.logo = logoUrl != null ? new ChannelLogo(logoUrl) : null;
+        }
     }
 
-    // Métodos getter y setter para acceder y modificar los atributos privados
-
-    public long getId() {
-        return id;
+    /**
+     * Vista sobre la fila {@code row} de la tabla.
+     */
+    Movie(ChannelTable table, int row, String bgImageUrl) {
+        this.table = table;
+        this.row = row;
+        this.bgImageUrl = bgImageUrl;
     }
 
-    public void setId(long id) {
-        this.id = id;
-    }
+    // Métodos getter para acceder a los atributos
 
-    public String getTitle() {
-        return title;
+    /**
+     * Id estable del canal (ver ChannelIds): es lo que se pasa entre actividades
+     * para volver a encontrar la película en el ChannelRepository.
+     */
+    public long getId() {
+        return table.getId(row);
     }
 
-    public void setTitle(String title) {
-        this.title = title;
+    /**
+     * Nombre del canal, o su tvg-id si la lista no trae nombre.
+     */
+    public String getTitle() {
+        String name = table.getName(row);
+        return name == null || name.isEmpty() ? table.getChannelId(row) : name;
     }
 
+    // En los canales la descripción es el mismo título; no se guarda dos veces
     public String getDescription() {
-        return description;
-    }
-
-    public void setDescription(String description) {
-        this.description = description;
+        return getTitle();
     }
 
     public String getGroup() {
-        return group;
-    }
-
-    public void setGroup(String group) {
-        this.group = group;
+        return table.getGroup(row);
     }
 
+    // En los canales el "estudio" es el tvg-id
     public String getStudio() {
-        return studio;
+        return table.getChannelId(row);
     }
 
-    public void setStudio(String studio) {
-        this.studio = studio;
+    public String getVideoUrl() {
+        return table.getUrl(row);
     }
 
-    public String getVideoUrl() {
-        return videoUrl;
+    public List<String> getAlternateVideoUrls() {
+        return table.getAlternateUrls(row);
     }
 
-    public void setVideoUrl(String videoUrl) {
-        this.videoUrl = videoUrl;
+    public byte[] getAttributes() {
+        return table.getAttributes(row);
     }
 
     public String getBackgroundImageUrl() {
         return bgImageUrl;
     }
 
-    public void setBackgroundImageUrl(String bgImageUrl) {
-        this.bgImageUrl = bgImageUrl;
-    }
-
     public String getCardImageUrl() {
-        return cardImageUrl;
+        return table.getLogo(row);
     }
 
-    public void setCardImageUrl(String cardImageUrl) {
-        this.cardImageUrl = cardImageUrl;
+    /**
+     * Textos y logo de la tarjeta, armados la primera vez. Se puede llamar desde cualquier hilo:
+     * si dos hilos la arman a la vez los dos resultados son iguales, y los campos finales de Card
+     * hacen que cualquiera de los dos se vea completo.
+     */
+    Card getCard() {
+        Card result = card;
+        if (result == null) {
+            result = new Card(getTitle(), getStudio(), getCardImageUrl());
+            card = result;
+        }
+        return result;
     }
 
     /*
@@ -103,11 +123,11 @@ public class Movie implements Serializable {
     @Override
     public String toString() {
         return "Movie{" +
-                "id=" + id +
-                ", title='" + title + '\'' +
-                ", videoUrl='" + videoUrl + '\'' +
+                "id=" + getId() +
+                ", title='" + getTitle() + '\'' +
+                ", videoUrl='" + getVideoUrl() + '\'' +
                 ", backgroundImageUrl='" + bgImageUrl + '\'' +
-                ", cardImageUrl='" + cardImageUrl + '\'' +
+                ", cardImageUrl='" + getCardImageUrl() + '\'' +
                 '}';
     }
 }
@@ -1,114 +1,488 @@
 package com.cadnative.firevisioniptv;
 
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import com.cadnative.firevisioniptv.catalog.ChannelDiff;
+import com.cadnative.firevisioniptv.catalog.ChannelTable;
+import com.cadnative.firevisioniptv.catalog.PlaylistMerger;
+import com.cadnative.firevisioniptv.catalog.RemotePlaylistSource;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /*
  * Clase utilitaria para manejar la lista de objetos Movie.
  * Proporciona métodos para cargar y preparar una lista de películas (o canales de video)
- * a partir de datos obtenidos, en este caso, desde un archivo local y Firebase.
+ * a partir de datos obtenidos desde un archivo local o desde una lista remota.
  */
 public final class MovieList {
 
-    // Lista estática que almacena todos los objetos Movie generados
-    static List<Movie> list;
+    // Tag para mensajes de log
+    private static final String TAG = "MovieList";
+
+    // Cantidad de canales que se entregan a la UI en cada lote durante la carga progresiva
+    public static final int BATCH_SIZE = 500;
+
+    // Hilo de fondo donde se lee y convierte la lista de reproducción
+    private static final ExecutorService sLoader = Executors.newSingleThreadExecutor();
+
+    // Handler del hilo principal para publicar los lotes
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    // Arreglo con URLs de imágenes de fondo que se asignarán aleatoriamente a los videos
+    private static final String[] BG_IMAGE_URLS = {
+            "https://firebasestorage.googleapis.com/v0/b/firevisioniptv.appspot.com/o/bk1.jpg?alt=media&token=bc5dafeb-33a8-48d4-b283-6ff22bf3a7e5",
+            "https://firebasestorage.googleapis.com/v0/b/firevisioniptv.appspot.com/o/bk3.png?alt=media&token=bd37b51c-7e9b-4500-9b62-11c98603e9b3",
+            "https://firebasestorage.googleapis.com/v0/b/firevisioniptv.appspot.com/o/bk4.png?alt=media&token=30e5bfc3-f7b3-4d69-bdfd-71fa9ff9b789",
+    };
+
+    private static final Random sRandom = new Random();
+
+    // Listas incluidas en assets; se unen en una sola eliminando los canales repetidos
+    private static final String[] PLAYLIST_ASSETS = {
+            "playlist.m3u",
+            "playlist_matiasprueba.m3u",
+            "playlist_matiasprueba_plus.m3u",
+    };
+
+    // Lista que el usuario puede copiar a la carpeta de la app en el almacenamiento externo;
+    // si existe, reemplaza a la lista incluida en assets
+    private static final String SIDELOADED_PLAYLIST = "playlist.m3u";
+
+    // Carpeta (dentro de filesDir) donde se guarda la copia local de la lista remota
+    private static final String REMOTE_CACHE_DIR = "playlists";
+
+    // Identificadores del origen de la lista guardada en Realm (ver ChannelStore)
+    private static final String SOURCE_REMOTE = "remote:";
+    private static final String SOURCE_FILE = "file:";
+    private static final String SOURCE_ASSETS = "assets";
+
+    // URL de la lista remota cargada en este proceso; solo se usa desde el hilo de carga
+    private static String sRemoteUrl;
+
+    /**
+     * Recibe las películas a medida que se cargan. Todos los métodos se llaman en el hilo principal.
+     */
+    public interface MoviesCallback {
+        // Se llama por cada lote de hasta BATCH_SIZE películas, en el orden de la lista.
+        // Todas son vistas sobre {@code table}, y la película número i de la carga es su fila i
+        void onMoviesLoaded(ChannelTable table, List<Movie> batch);
+
+        // Se llama una vez cuando ya no quedan más lotes
+        void onLoadFinished();
+    }
+
+    /**
+     * Recibe los cambios de una actualización incremental, en el hilo principal.
+     */
+    public interface RefreshCallback {
+        // La lista completa nueva (vistas sobre la tabla nueva) y el delta.
+        // movies.get(i) es la fila i de {@code table}
+        void onCatalogChanged(ChannelTable table, List<Movie> movies, Delta delta);
+
+        // Se llama al terminar, haya o no cambios
+        void onRefreshFinished();
+    }
+
+    /**
+     * Cambios entre la lista mostrada y la nueva versión de la lista remota.
+     * changedOld.get(i) es la película que se reemplaza por changedNew.get(i).
+     */
+    public static final class Delta {
+        public final List<Movie> added = new ArrayList<>();
+        public final List<Movie> removed = new ArrayList<>();
+        public final List<Movie> changedOld = new ArrayList<>();
+        public final List<Movie> changedNew = new ArrayList<>();
+    }
+
+    // Identidad de un canal (tvg-id + URL) y comparación del resto de los datos visibles
+    private static final ChannelDiff.Keys<Movie> MOVIE_KEYS = new ChannelDiff.Keys<Movie>() {
+        @Override
+        public String identity(Movie movie) {
+            return movie.getStudio() + '\n' + movie.getVideoUrl();
+        }
+
+        @Override
+        public boolean sameContent(Movie oldMovie, Movie newMovie) {
+            return equal(oldMovie.getTitle(), newMovie.getTitle())
+                    && equal(oldMovie.getGroup(), newMovie.getGroup())
+                    && equal(oldMovie.getCardImageUrl(), newMovie.getCardImageUrl())
+                    && oldMovie.getAlternateVideoUrls().equals(newMovie.getAlternateVideoUrls())
+                    && Arrays.equals(oldMovie.getAttributes(), newMovie.getAttributes());
+        }
+    };
+
+    // Combina un canal repetido con el primero: su URL queda como alternativa y se suman sus grupos
+    private static final PlaylistMerger.Channels<Channel> CHANNEL_MERGE = new PlaylistMerger.Channels<Channel>() {
+        @Override
+        public String channelId(Channel channel) {
+            return channel.getChannelId();
+        }
+
+        @Override
+        public String name(Channel channel) {
+            return channel.getChannelName();
+        }
+
+        @Override
+        public String url(Channel channel) {
+            return channel.getChannelUrl();
+        }
+
+        @Override
+        public void merge(Channel primary, Channel duplicate) {
+            String url = duplicate.getChannelUrl();
+            if (url != null && !url.equals(primary.getChannelUrl())) {
+                primary.addChannelAltUrl(url);
+            }
+
+            // Los grupos se guardan separados por ';', como en group-title
+            String group = duplicate.getChannelGroup();
+            String primaryGroup = primary.getChannelGroup();
+            if (primaryGroup == null || primaryGroup.isEmpty()) {
+                primary.setChannelGroup(group);
+            } else if (group != null && !group.isEmpty()
+                    && !Arrays.asList(primaryGroup.split(";")).contains(group)) {
+                primary.setChannelGroup(primaryGroup + ";" + group);
+            }
+
+            if (primary.getChannelImg() == null) {
+                primary.setChannelImg(duplicate.getChannelImg());
+            }
+            if (primary.getChannelId() == null) {
+                primary.setChannelId(duplicate.getChannelId());
+            }
+            if (primary.getChannelAttributes() == null) {
+                primary.setChannelAttributes(duplicate.getChannelAttributes());
+            }
+        }
+    };
+
+    /*
+     * Carga la lista de películas en un hilo de fondo y la entrega en lotes de BATCH_SIZE
+     * al hilo principal, para que la UI pueda mostrar las primeras filas sin esperar
+     * a que se procese toda la lista. Normalmente solo lo llama ChannelRepository.
+     * Si hay una lista remota configurada (R.string.playlist_url) se usa esa; si no, la que
+     * el usuario haya copiado al almacenamiento de la app (mapeada en memoria); y si no, la de assets.
+     * Si ese origen no cambió desde el último arranque, los canales se leen de Realm sin parsear.
+     */
+    public static void setupMoviesAsync(Context context, final MoviesCallback callback) {
+        final Context appContext = context.getApplicationContext();
+        // Todas las películas de esta carga son vistas sobre la misma tabla
+        final ChannelTable table = new ChannelTable();
+
+        sLoader.execute(new Runnable() {
+            @Override
+            public void run() {
+                fileReader.BatchListener batchListener = new fileReader.BatchListener() {
+                    @Override
+                    public void onBatch(List<Channel> batch) {
+                        final List<Movie> movies = toMovies(table, batch);
+                        sMainHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                callback.onMoviesLoaded(table, movies);
+                            }
+                        });
+                    }
+                };
 
-    // Contador estático para asignar IDs únicos a cada Movie creado
-    private static long count = 0;
+                String url = appContext.getString(R.string.playlist_url);
+                boolean remoteLoaded = !url.isEmpty() && readRemote(appContext, url, batchListener);
+                if (!remoteLoaded) {
+                    File sideloaded = sideloadedPlaylist(appContext);
+                    if (sideloaded != null) {
+                        readSideloaded(sideloaded, batchListener);
+                    } else {
+                        readAssets(appContext, batchListener);
+                    }
+                }
+
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onLoadFinished();
+                    }
+                });
+            }
+        });
+    }
 
     /*
-     * Método público que devuelve la lista completa de películas.
-     * Recibe un AssetManager para poder acceder a archivos locales necesarios.
+     * Actualiza la lista remota con una petición condicional. Si el servidor responde 304 y la
+     * lista ya se parseó en un arranque anterior, los canales se leen de Realm sin parsear nada.
+     * @return false si no se pudo obtener la lista (ni de la red ni de la copia local)
      */
-    public static List<Movie> getAllMovies(AssetManager assetManager) {
-        return setupMovies(assetManager);
+    private static boolean readRemote(Context context, String url, fileReader.BatchListener batchListener) {
+        RemotePlaylistSource.Result result;
+        try {
+            result = new RemotePlaylistSource(url, new File(context.getFilesDir(), REMOTE_CACHE_DIR)).fetch();
+        } catch (IOException e) {
+            Log.w(TAG, "Remote playlist unavailable: " + e.getMessage());
+            return false;
+        }
+
+        String source = SOURCE_REMOTE + url;
+        String signature = fileSignature(result.getFile());
+        if (!ChannelStore.read(source, signature, BATCH_SIZE, batchListener)) {
+            try (ChannelStore.Writer writer = ChannelStore.beginReplace()) {
+                if (new fileReader().readFile(result.getFile(), BATCH_SIZE, storing(writer, batchListener)) == 0) {
+                    return false;
+                }
+                writer.commit(source, signature);
+            }
+        }
+        sRemoteUrl = url;
+        return true;
     }
 
     /*
-     * Método que configura y crea la lista de películas.
-     * Lee canales desde un archivo usando fileReader y les asigna imágenes de fondo
-     * aleatorias de un arreglo predefinido.
+     * Lista copiada por el usuario: se lee de Realm si el archivo no cambió desde que se guardó.
      */
-    public static List<Movie> setupMovies(AssetManager assetManager) {
-        // Referencia a la base de datos Firebase para el nodo "channels"
-        DatabaseReference channelsRef = FirebaseDatabase.getInstance().getReference("channels");
-
-        // Inicializa la lista de películas vacía
-        list = new ArrayList<>();
-
-        // Arreglo con URLs de imágenes de fondo que se asignarán aleatoriamente a los videos
-        String bgImageUrl[] = {
-                "https://firebasestorage.googleapis.com/v0/b/firevisioniptv.appspot.com/o/bk1.jpg?alt=media&token=bc5dafeb-33a8-48d4-b283-6ff22bf3a7e5",
-                "https://firebasestorage.googleapis.com/v0/b/firevisioniptv.appspot.com/o/bk3.png?alt=media&token=bd37b51c-7e9b-4500-9b62-11c98603e9b3",
-                "https://firebasestorage.googleapis.com/v0/b/firevisioniptv.appspot.com/o/bk4.png?alt=media&token=30e5bfc3-f7b3-4d69-bdfd-71fa9ff9b789",
+    private static void readSideloaded(File playlist, fileReader.BatchListener batchListener) {
+        String source = SOURCE_FILE + playlist.getPath();
+        String signature = fileSignature(playlist);
+        if (!ChannelStore.read(source, signature, BATCH_SIZE, batchListener)) {
+            try (ChannelStore.Writer writer = ChannelStore.beginReplace()) {
+                if (new fileReader().readFile(playlist, BATCH_SIZE, storing(writer, batchListener)) > 0) {
+                    writer.commit(source, signature);
+                }
+            }
+        }
+    }
+
+    /*
+     * Listas de assets: solo cambian con una actualización de la app, así que se vuelven
+     * a parsear únicamente la primera vez que arranca cada versión.
+     */
+    private static void readAssets(Context context, fileReader.BatchListener batchListener) {
+        String signature = appSignature(context);
+        if (!ChannelStore.read(SOURCE_ASSETS, signature, BATCH_SIZE, batchListener)) {
+            List<Channel> channels = readBundledPlaylists(context.getAssets());
+            try (ChannelStore.Writer writer = ChannelStore.beginReplace()) {
+                deliverInBatches(channels, storing(writer, batchListener));
+                if (!channels.isEmpty()) {
+                    writer.commit(SOURCE_ASSETS, signature);
+                }
+            }
+        }
+    }
+
+    // Firma de un archivo local: cambia si se reemplaza o se modifica
+    private static String fileSignature(File file) {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    // Firma de los assets: versión e instante de instalación del APK
+    private static String appSignature(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return info.getLongVersionCode() + ":" + info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "";
+        }
+    }
+
+    /*
+     * Lee todas las listas de assets y las une en una sola. Los canales repetidos entre listas
+     * (misma URL, o mismo tvg-id y nombre) se combinan en uno con URLs alternativas.
+     * Los lotes se entregan al final, porque un canal de la última lista puede completar
+     * a uno de la primera; por eso es la única lectura que conserva todos los canales, y solo
+     * mientras dura la carga (las listas de assets son chicas y conocidas).
+     */
+    private static List<Channel> readBundledPlaylists(AssetManager assetManager) {
+        final PlaylistMerger<Channel> merger = new PlaylistMerger<>(CHANNEL_MERGE);
+        fileReader.BatchListener toMerger = new fileReader.BatchListener() {
+            @Override
+            public void onBatch(List<Channel> batch) {
+                merger.addAll(batch);
+            }
         };
+        int total = 0;
+        for (String asset : PLAYLIST_ASSETS) {
+            total += new fileReader().readFile(assetManager, asset, BATCH_SIZE, toMerger);
+        }
+        Log.i(TAG, "readBundledPlaylists: " + total + " entries, "
+                + merger.getDuplicateCount() + " duplicates merged");
+        return merger.getChannels();
+    }
 
-        // Lee la lista de canales desde un archivo local usando fileReader
-        List<Channel> listChannel = new fileReader().readFile(assetManager);
+    // Entrega la lista al listener en lotes de BATCH_SIZE
+    private static void deliverInBatches(List<Channel> channels, fileReader.BatchListener batchListener) {
+        for (int start = 0; start < channels.size(); start += BATCH_SIZE) {
+            int end = Math.min(start + BATCH_SIZE, channels.size());
+            batchListener.onBatch(new ArrayList<>(channels.subList(start, end)));
+        }
+    }
 
-        // Itera sobre cada canal para crear un objeto Movie correspondiente
-        for (int index = 0; index < listChannel.size(); ++index) {
-            // Obtiene el nombre del canal
-            String name= listChannel.get(index).getChannelName();
+    // Guarda cada lote en Realm antes de pasarlo a {@code next}; después nadie conserva los canales
+    private static fileReader.BatchListener storing(final ChannelStore.Writer writer,
+                                                    final fileReader.BatchListener next) {
+        return new fileReader.BatchListener() {
+            @Override
+            public void onBatch(List<Channel> batch) {
+                writer.add(batch);
+                next.onBatch(batch);
+            }
+        };
+    }
 
-            // Si el nombre está vacío, usa el ID del canal como nombre
-            if(name.isEmpty()){
-                name= listChannel.get(index).getChannelId();
+    /*
+     * Vuelve a consultar la lista remota (petición condicional) y, si cambió, calcula las
+     * diferencias con {@code current}, la lista que se está mostrando. El delta solo lleva los
+     * canales agregados, eliminados o modificados; los demás son vistas nuevas sobre la tabla
+     * nueva con el mismo id y el mismo contenido.
+     * onCatalogChanged no se llama si la lista actual no es remota, si el servidor responde 304
+     * o si no hubo cambios; onRefreshFinished se llama siempre.
+     */
+    public static void refreshAsync(Context context, final List<Movie> current, final RefreshCallback callback) {
+        final Context appContext = context.getApplicationContext();
+        sLoader.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refreshRemote(appContext, current, callback);
+                } finally {
+                    sMainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onRefreshFinished();
+                        }
+                    });
+                }
             }
+        });
+    }
 
-            // Obtiene la imagen en miniatura del canal
-            String cardImage = listChannel.get(index).getChannelImg();
+    // Cuerpo de refreshAsync; se ejecuta en el hilo de carga
+    private static void refreshRemote(Context context, List<Movie> current, final RefreshCallback callback) {
+        String url = context.getString(R.string.playlist_url);
+        if (url.isEmpty() || !url.equals(sRemoteUrl)) {
+            return;
+        }
 
-            // Crea un nuevo Movie con los datos del canal y una imagen de fondo aleatoria
-            list.add(
-                    buildMovieInfo(
-                            name,                                           // título
-                            name,                                           // descripción (se usa igual que título)
-                            listChannel.get(index).getChannelId(),         // estudio (se usa ID como studio)
-                            listChannel.get(index).getChannelUrl(),        // URL del video
-                            listChannel.get(index).getChannelGroup(),      // grupo o categoría
-                            cardImage,                                      // imagen miniatura
-                            bgImageUrl[new Random().nextInt(bgImageUrl.length)]  // imagen fondo aleatoria
-                    )
-            );
+        RemotePlaylistSource.Result result;
+        try {
+            result = new RemotePlaylistSource(url, new File(context.getFilesDir(), REMOTE_CACHE_DIR)).fetch();
+        } catch (IOException e) {
+            Log.w(TAG, "Remote playlist refresh failed: " + e.getMessage());
+            return;
+        }
+        if (!result.isModified()) {
+            return;
         }
 
-        // Devuelve la lista completa de objetos Movie creada
-        return list;
+        // La versión nueva se guarda en Realm y se arma en su propia tabla lote a lote;
+        // después se compara con las películas mostradas
+        final ChannelTable table = new ChannelTable();
+        final List<Movie> fresh = new ArrayList<>();
+        try (ChannelStore.Writer writer = ChannelStore.beginReplace()) {
+            fileReader.BatchListener toTable = new fileReader.BatchListener() {
+                @Override
+                public void onBatch(List<Channel> batch) {
+                    fresh.addAll(toMovies(table, batch));
+                }
+            };
+            if (new fileReader().readFile(result.getFile(), BATCH_SIZE, storing(writer, toTable)) == 0) {
+                return;
+            }
+            writer.commit(SOURCE_REMOTE + url, fileSignature(result.getFile()));
+        }
+        ChannelDiff diff = ChannelDiff.compute(current, fresh, MOVIE_KEYS);
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        // Los canales sin cambios también pasan a ser vistas sobre la tabla nueva (la anterior se
+        // libera); conservan su imagen de fondo, y las filas los reconocen por id y contenido
+        boolean[] changed = new boolean[fresh.size()];
+        for (int index : diff.getChanged()) {
+            changed[index] = true;
+        }
+        final List<Movie> newList = new ArrayList<>(fresh.size());
+        final Delta delta = new Delta();
+        for (int i = 0; i < fresh.size(); i++) {
+            int oldIndex = diff.oldIndexOf(i);
+            if (oldIndex >= 0 && !changed[i]) {
+                newList.add(new Movie(table, i, current.get(oldIndex).getBackgroundImageUrl()));
+                continue;
+            }
+            Movie movie = fresh.get(i);
+            newList.add(movie);
+            if (oldIndex < 0) {
+                delta.added.add(movie);
+            } else {
+                delta.changedOld.add(current.get(oldIndex));
+                delta.changedNew.add(movie);
+            }
+        }
+        for (int oldIndex : diff.getRemoved()) {
+            delta.removed.add(current.get(oldIndex));
+        }
+        Log.i(TAG, "refreshAsync: +" + diff.getAdded().size() + " -" + diff.getRemoved().size()
+                + " ~" + diff.getChanged().size() + " of " + fresh.size());
+
+        sMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onCatalogChanged(table, newList, delta);
+            }
+        });
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /*
+     * Devuelve la lista copiada por el usuario al almacenamiento externo de la app, o null si no hay.
+     * Hace acceso a disco, por eso solo se llama desde el hilo de carga.
+     */
+    private static File sideloadedPlaylist(Context context) {
+        File dir = context.getExternalFilesDir(null);
+        if (dir == null) {
+            return null;
+        }
+        File playlist = new File(dir, SIDELOADED_PLAYLIST);
+        return playlist.isFile() ? playlist : null;
     }
 
     /*
-     * Método privado auxiliar para construir un objeto Movie con todos sus datos.
-     * Recibe parámetros detallados para llenar cada campo del objeto Movie.
+     * Agrega cada canal a la tabla y crea su película (una vista liviana sobre la fila)
+     * con una imagen de fondo aleatoria.
      */
-    private static Movie buildMovieInfo(
-            String title,
-            String description,
-            String studio,
-            String videoUrl,
-            String group,
-            String cardImageUrl,
-            String backgroundImageUrl) {
-        Movie movie = new Movie();
-
-        // Asigna un ID único incremental
-        movie.setId(count++);
-
-        // Asigna los valores recibidos a los campos del objeto Movie
-        movie.setTitle(title);
-        movie.setDescription(description);
-        movie.setGroup(group);
-        movie.setStudio(studio);
-        movie.setCardImageUrl(cardImageUrl);
-        movie.setBackgroundImageUrl(backgroundImageUrl);
-        movie.setVideoUrl(videoUrl);
-
-        // Retorna el objeto Movie creado
-        return movie;
+    private static List<Movie> toMovies(ChannelTable table, List<Channel> listChannel) {
+        List<Movie> movies = new ArrayList<>();
+        if (listChannel == null) {
+            return movies;
+        }
+
+        for (Channel channel : listChannel) {
+            int row = table.add(
+                    channel.getChannelId(),
+                    channel.getChannelName(),
+                    channel.getChannelImg(),
+                    channel.getChannelGroup(),
+                    channel.getChannelUrl(),
+                    channel.getChannelDrmType(),
+                    channel.getChannelDrmKey(),
+                    channel.getChannelAttributes(),
+                    channel.getChannelAltUrls());          // URLs de los duplicados que se unieron a este canal
+            movies.add(new Movie(table, row,
+                    BG_IMAGE_URLS[sRandom.nextInt(BG_IMAGE_URLS.length)]));
+        }
+        return movies;
     }
 }
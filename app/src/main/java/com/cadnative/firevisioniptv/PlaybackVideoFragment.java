@@ -2,16 +2,21 @@ package com.cadnative.firevisioniptv;
 
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.KeyEvent;
 import android.view.Window;
 import android.view.WindowManager;
 
 import androidx.leanback.app.VideoSupportFragment;
 import androidx.leanback.app.VideoSupportFragmentGlueHost;
-import androidx.leanback.media.MediaPlayerAdapter;
 import androidx.leanback.widget.PlaybackControlsRow;
 
+import com.cadnative.firevisioniptv.catalog.ChannelIds;
+import com.cadnative.firevisioniptv.catalog.M3uAttributes;
+
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Fragmento que extiende VideoSupportFragment para reproducir videos (canales)
@@ -19,15 +24,26 @@ import java.util.List;
  */
 public class PlaybackVideoFragment extends VideoSupportFragment {
 
+    // Tag para mensajes de log
+    private static final String TAG = "PlaybackVideoFragment";
+
     // Glue para controlar la reproducción y la interfaz del reproductor
-    private ChannelPlaybackTransportControlGlue<MediaPlayerAdapter> mTransportControlGlue;
+    private ChannelPlaybackTransportControlGlue<HeaderMediaPlayerAdapter> mTransportControlGlue;
 
-    // Lista de canales disponibles (representados como objetos Movie)
+    // Lista de canales disponibles (instantánea vigente del repositorio)
     private List<Movie> mChannels;
+    private ChannelRepository mRepository;
 
     // Índice del canal actualmente reproducido en la lista
     private int mCurrentChannelIndex;
 
+    // Id pedido en el Intent, mientras todavía no se encontró el canal
+    private long mRequestedId;
+
+    // Canal en reproducción y cuántas de sus URLs alternativas ya se probaron
+    private Movie mCurrentMovie;
+    private int mAlternateIndex;
+
     /**
      * Método llamado al crear el fragmento.
      * Inicializa el reproductor, obtiene el canal actual y configura la pantalla.
@@ -36,18 +52,15 @@ public class PlaybackVideoFragment extends VideoSupportFragment {
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        // Obtener el objeto Movie enviado desde la actividad (canal seleccionado)
-        final Movie movie = (Movie) getActivity().getIntent().getSerializableExtra(DetailsActivity.MOVIE);
-
-        // Obtener la lista completa de canales y buscar el índice del canal actual
-        mChannels = MovieList.list;
-        mCurrentChannelIndex = mChannels.indexOf(movie);
+        // Id del canal seleccionado; el canal se busca en el repositorio
+        mRequestedId = getActivity().getIntent().getLongExtra(DetailsActivity.CHANNEL_ID, ChannelIds.NO_ID);
+        mChannels = Collections.emptyList();
 
         // Crear el host para los controles de video (Leanback)
         VideoSupportFragmentGlueHost glueHost = new VideoSupportFragmentGlueHost(PlaybackVideoFragment.this);
 
-        // Crear el adaptador de reproducción multimedia
-        MediaPlayerAdapter playerAdapter = new MediaPlayerAdapter(getContext());
+        // Crear el adaptador de reproducción multimedia (con soporte de cabeceras HTTP)
+        HeaderMediaPlayerAdapter playerAdapter = new HeaderMediaPlayerAdapter(getContext());
 
         // Desactivar la repetición automática
         playerAdapter.setRepeatAction(PlaybackControlsRow.RepeatAction.INDEX_NONE);
@@ -58,8 +71,11 @@ public class PlaybackVideoFragment extends VideoSupportFragment {
         // Asociar el host a este glue
         mTransportControlGlue.setHost(glueHost);
 
-        // Actualizar la UI y el reproductor con la información del canal actual
-        updateChannelInfo(movie);
+        // La lista de canales llega del repositorio; si el proceso se reinició se vuelve a cargar.
+        // La primera instantánea que contenga el canal pedido inicia la reproducción
+        mRepository = FirevisionApplication.getChannelRepository();
+        mRepository.subscribe(mSnapshotListener);
+        mRepository.load();
 
         // Mantener la pantalla encendida mientras se reproduce video
         Window window = getActivity().getWindow();
@@ -68,21 +84,72 @@ public class PlaybackVideoFragment extends VideoSupportFragment {
         window.setAttributes(params);
     }
 
+    /**
+     * Cada vez que cambia la lista se vuelve a ubicar el canal en reproducción dentro de ella.
+     */
+    private final ChannelRepository.Listener mSnapshotListener = new ChannelRepository.Listener() {
+        @Override
+        public void onSnapshot(ChannelRepository.Snapshot snapshot) {
+            mChannels = snapshot.getMovies();
+            if (mCurrentMovie != null) {
+                mCurrentChannelIndex = snapshot.indexOf(mCurrentMovie.getId());
+                return;
+            }
+            int index = snapshot.indexOf(mRequestedId);
+            if (index >= 0) {
+                mCurrentChannelIndex = index;
+                updateChannelInfo(mChannels.get(index));
+            } else if (snapshot.isComplete()) {
+                // El canal ya no está en la lista
+                Log.w(TAG, "Channel " + mRequestedId + " not found");
+                getActivity().finish();
+            }
+        }
+    };
+
     /**
      * Actualiza la información del canal actual en la UI y configura la fuente de video.
      * @param movie objeto Movie que representa el canal a reproducir
      */
     private void updateChannelInfo(Movie movie) {
+        mCurrentMovie = movie;
+        mAlternateIndex = 0;
         mTransportControlGlue.setTitle(movie.getTitle());          // Título del canal
         mTransportControlGlue.setSubtitle(movie.getDescription());  // Descripción o subtítulo
-        mTransportControlGlue.getPlayerAdapter().setDataSource(Uri.parse(movie.getVideoUrl())); // Fuente del video
+        playUrl(movie.getVideoUrl());
+    }
+
+    private void playUrl(String url) {
+        // User-Agent / Referer que la lista pide para este canal (#EXTVLCOPT)
+        Map<String, String> headers = M3uAttributes.httpHeaders(mCurrentMovie.getAttributes());
+        mTransportControlGlue.getPlayerAdapter().setDataSource(Uri.parse(url), headers); // Fuente del video
         mTransportControlGlue.playWhenPrepared();                   // Reproducir automáticamente cuando esté listo
     }
 
+    /**
+     * Si el stream falla y el canal aparecía en otras listas con otra URL, se prueba la siguiente.
+     */
+    @Override
+    protected void onError(int errorCode, CharSequence errorMessage) {
+        super.onError(errorCode, errorMessage);
+        if (mTransportControlGlue == null || mCurrentMovie == null) {
+            return;
+        }
+        List<String> alternates = mCurrentMovie.getAlternateVideoUrls();
+        if (mAlternateIndex < alternates.size()) {
+            String url = alternates.get(mAlternateIndex++);
+            Log.w(TAG, "Playback error " + errorCode + ", trying alternate " + url);
+            playUrl(url);
+        }
+    }
+
     /**
      * Cambia al siguiente canal en la lista (circular).
      */
     public void nextChannel() {
+        if (mChannels.isEmpty()) {
+            return;
+        }
         mCurrentChannelIndex = (mCurrentChannelIndex + 1) % mChannels.size();
         updateChannelInfo(mChannels.get(mCurrentChannelIndex));
     }
@@ -91,6 +158,9 @@ public class PlaybackVideoFragment extends VideoSupportFragment {
      * Cambia al canal anterior en la lista (circular).
      */
     public void previousChannel() {
+        if (mChannels.isEmpty()) {
+            return;
+        }
         mCurrentChannelIndex = (mCurrentChannelIndex - 1 + mChannels.size()) % mChannels.size();
         updateChannelInfo(mChannels.get(mCurrentChannelIndex));
     }
@@ -141,6 +211,9 @@ public class PlaybackVideoFragment extends VideoSupportFragment {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        if (mRepository != null) {
+            mRepository.unsubscribe(mSnapshotListener);
+        }
         if (mTransportControlGlue != null) {
             mTransportControlGlue = null;  // Liberar referencia para ayudar GC
         }
@@ -48,8 +48,8 @@ public class SearchActivity extends FragmentActivity {
                     // Crear un Intent para abrir PlaybackActivity y reproducir el canal seleccionado
                     Intent intent = new Intent(SearchActivity.this, PlaybackActivity.class);
 
-                    // Pasar el objeto Movie seleccionado a la nueva actividad con clave DetailsActivity.MOVIE
-                    intent.putExtra(DetailsActivity.MOVIE, movie);
+                    // Pasar solo el id del canal; la actividad lo busca en el repositorio
+                    intent.putExtra(DetailsActivity.CHANNEL_ID, movie.getId());
 
                     // Iniciar la actividad PlaybackActivity
                     startActivity(intent);
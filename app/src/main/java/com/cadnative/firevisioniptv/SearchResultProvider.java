@@ -22,7 +22,6 @@ import com.cadnative.firevisioniptv.CardPresenter;
 import com.cadnative.firevisioniptv.DetailsActivity;
 import com.cadnative.firevisioniptv.PlaybackActivity;
 import com.cadnative.firevisioniptv.Movie;
-import com.cadnative.firevisioniptv.MovieList;
 import com.cadnative.firevisioniptv.FirevisionApplication;
 
 /**
@@ -34,8 +33,11 @@ public class SearchResultProvider implements SearchSupportFragment.SearchResultP
     // Adaptador que contiene las filas de resultados a mostrar en la búsqueda
     private ArrayObjectAdapter mRowsAdapter;
 
-    // Lista completa de películas/canales cargada para filtrar búsquedas
-    private List<Movie> mAllMovies;
+    // Tarjetas de la única fila de resultados; se actualiza con un diff en cada tecla
+    private final ArrayObjectAdapter mResultsAdapter;
+
+    // Repositorio compartido; cada búsqueda filtra su instantánea vigente
+    private final ChannelRepository mRepository;
 
     /**
      * Constructor, inicializa el adaptador de filas y carga la lista completa de películas
@@ -44,8 +46,14 @@ public class SearchResultProvider implements SearchSupportFragment.SearchResultP
         // Crea un adaptador para filas con un presentador para listas (ListRowPresenter)
         mRowsAdapter = new ArrayObjectAdapter(new ListRowPresenter());
 
-        // Carga la lista completa de películas usando el AssetManager de la app
-        mAllMovies = MovieList.setupMovies(FirevisionApplication.getAppContext().getAssets());
+        // La fila de resultados se crea una sola vez; cada búsqueda solo cambia sus tarjetas
+        mResultsAdapter = new ArrayObjectAdapter(new CardPresenter());
+        mRowsAdapter.add(new ListRow(new HeaderItem("Search Results"), mResultsAdapter));
+
+        // Usa la lista ya cargada por la app; solo se carga si aún no se hizo (por ejemplo,
+        // si la búsqueda se abre directamente después de que el sistema cerró el proceso)
+        mRepository = FirevisionApplication.getChannelRepository();
+        mRepository.load();
     }
 
     /**
@@ -86,29 +94,19 @@ public class SearchResultProvider implements SearchSupportFragment.SearchResultP
      * @param query texto a buscar en los títulos de las películas
      */
     private void loadQueryResults(String query) {
-        // Limpiar los resultados previos
-        mRowsAdapter.clear();
-
         // Lista temporal para almacenar las coincidencias con la consulta
         List<Movie> results = new ArrayList<>();
 
         // Filtrar películas que contengan el texto de búsqueda (sin importar mayúsculas/minúsculas)
-        for (Movie movie : mAllMovies) {
-            if (movie.getTitle().toLowerCase().contains(query.toLowerCase())) {
+        String needle = query.toLowerCase();
+        for (Movie movie : mRepository.getSnapshot().getMovies()) {
+            if (movie.getTitle().toLowerCase().contains(needle)) {
                 results.add(movie);
             }
         }
 
-        // Crear un encabezado para la lista de resultados
-        HeaderItem header = new HeaderItem("Search Results");
-
-        // Adaptador para las tarjetas que representan cada película en los resultados
-        ArrayObjectAdapter listRowAdapter = new ArrayObjectAdapter(new CardPresenter());
-
-        // Agregar todas las películas encontradas al adaptador de tarjetas
-        listRowAdapter.addAll(0, results);
-
-        // Agregar una fila al adaptador principal con el encabezado y las tarjetas de resultados
-        mRowsAdapter.add(new ListRow(header, listRowAdapter));
+        // Reemplazar los resultados previos: solo se vinculan las tarjetas de canales que cambiaron,
+        // las que siguen en los resultados conservan su vista, su imagen y el foco
+        mResultsAdapter.setItems(results, ChannelRowAdapter.MOVIE_DIFF);
     }
 }
@@ -0,0 +1,151 @@
+package com.cadnative.firevisioniptv;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Medición del arranque en frío.
+ * Cada fase (Application.onCreate, MainActivity.onCreate, FirebaseApp.initializeApp, commitNow
+ * del MainFragment, loadRows) se marca con una sección de android.os.Trace, que se ve en Perfetto
+ * y en los macrobenchmarks, y se mide con el reloj monotónico (SystemClock.elapsedRealtime).
+ * Cuando la primera fila del browse tiene contenido se llama a reportFullyDrawn() y se escribe
+ * en el log una línea de resumen por arranque; si supera FULLY_DRAWN_BUDGET_MS sale como warning.
+ * Solo se usa desde el hilo principal.
+ */
+public final class StartupTrace {
+
+    // Tag para mensajes de log
+    private static final String TAG = "StartupTrace";
+
+    // Fases del arranque, en el orden en que ocurren
+    public static final String APPLICATION = "Application.onCreate";
+    public static final String MAIN_ACTIVITY = "MainActivity.onCreate";
+    public static final String FIREBASE = "FirebaseApp.initializeApp";
+    public static final String COMMIT_FRAGMENT = "MainFragment.commitNow";
+    public static final String LOAD_ROWS = "MainFragment.loadRows";
+    // Desde loadRows hasta que se muestra la primera fila (asíncrona: atraviesa el hilo de carga)
+    public static final String FIRST_ROWS = "MainFragment.firstRows";
+
+    // Tiempo máximo esperado desde que arranca el proceso hasta la primera fila
+    static final long FULLY_DRAWN_BUDGET_MS = 2000;
+
+    private static final int FIRST_ROWS_COOKIE = 1;
+
+    private static final Map<String, Long> sStarts = new LinkedHashMap<>();
+    private static final Map<String, Long> sDurations = new LinkedHashMap<>();
+    private static boolean sReported;
+    // Milisegundos desde el inicio del proceso hasta la primera fila; -1 mientras no se informa.
+    // Volatile porque las pruebas instrumentadas lo esperan desde su propio hilo
+    private static volatile long sFullyDrawnMs = -1;
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Inicia una fase sincrónica; se cierra con {@link #end} en el mismo hilo y en orden inverso.
+     */
+    public static void begin(String phase) {
+        Trace.beginSection(phase);
+        if (!sReported) {
+            sStarts.put(phase, SystemClock.elapsedRealtime());
+        }
+    }
+
+    public static void end(String phase) {
+        Trace.endSection();
+        record(phase);
+    }
+
+    /**
+     * Inicia una fase asíncrona, que termina en otro momento del hilo principal
+     * (por ejemplo, cuando llega el primer lote de canales).
+     */
+    public static void beginAsync(String phase) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(phase, FIRST_ROWS_COOKIE);
+        }
+        if (!sReported) {
+            sStarts.put(phase, SystemClock.elapsedRealtime());
+        }
+    }
+
+    public static void endAsync(String phase) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(phase, FIRST_ROWS_COOKIE);
+        }
+        record(phase);
+    }
+
+    /**
+     * La primera fila tiene contenido: informa a la plataforma que la actividad terminó de
+     * dibujarse y escribe el resumen del arranque. Solo la primera llamada del proceso cuenta.
+     */
+    public static void reportFullyDrawn(Activity activity) {
+        if (sReported) {
+            return;
+        }
+        endAsync(FIRST_ROWS);
+        sReported = true;
+        if (activity != null) {
+            activity.reportFullyDrawn();
+        }
+
+        long total = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        sFullyDrawnMs = total;
+        String summary = summary(total);
+        if (isOverBudget(total)) {
+            Log.w(TAG, summary + " (over budget of " + FULLY_DRAWN_BUDGET_MS + "ms)");
+        } else {
+            Log.i(TAG, summary);
+        }
+        sStarts.clear();
+    }
+
+    /**
+     * Tiempo hasta la primera fila medido por {@link #reportFullyDrawn}, o -1 si todavía no se informó.
+     */
+    static long getFullyDrawnMs() {
+        return sFullyDrawnMs;
+    }
+
+    static boolean isOverBudget(long fullyDrawnMs) {
+        return fullyDrawnMs > FULLY_DRAWN_BUDGET_MS;
+    }
+
+    /**
+     * Línea de resumen del arranque, por ejemplo
+     * "launch fullyDrawn=850ms Application.onCreate=40ms MainActivity.onCreate=120ms ...".
+     */
+    static String summary(long fullyDrawnMs) {
+        StringBuilder builder = new StringBuilder("launch fullyDrawn=").append(fullyDrawnMs).append("ms");
+        for (Map.Entry<String, Long> entry : sDurations.entrySet()) {
+            builder.append(' ').append(entry.getKey()).append('=').append(entry.getValue()).append("ms");
+        }
+        return builder.toString();
+    }
+
+    // Vuelve al estado de un proceso recién iniciado, para que cada prueba mida su propio arranque
+    @VisibleForTesting
+    static void reset() {
+        sStarts.clear();
+        sDurations.clear();
+        sReported = false;
+        sFullyDrawnMs = -1;
+    }
+
+    private static void record(String phase) {
+        Long start = sStarts.remove(phase);
+        if (start != null && !sReported) {
+            sDurations.put(phase, SystemClock.elapsedRealtime() - start);
+        }
+    }
+}
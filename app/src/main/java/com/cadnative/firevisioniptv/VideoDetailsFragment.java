@@ -34,6 +34,7 @@ import android.widget.Toast;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.target.SimpleTarget;
 import com.bumptech.glide.request.transition.Transition;
+import com.cadnative.firevisioniptv.catalog.ChannelIds;
 
 import java.util.Collections;
 import java.util.List;
@@ -60,6 +61,10 @@ public class VideoDetailsFragment extends DetailsSupportFragment {
     // Objeto Movie seleccionado cuyos detalles se mostrarán
     private Movie mSelectedMovie;
 
+    // Id del canal pedido en el Intent; la película se busca en el repositorio
+    private long mSelectedId;
+    private ChannelRepository mRepository;
+
     // Adaptador para contener filas con diferentes tipos de datos
     private ArrayObjectAdapter mAdapter;
 
@@ -77,29 +82,70 @@ public class VideoDetailsFragment extends DetailsSupportFragment {
         // Inicializa el controlador para el fondo del fragmento detalles
         mDetailsBackground = new DetailsSupportFragmentBackgroundController(this);
 
-        // Obtiene la película seleccionada pasada desde el Intent
-        mSelectedMovie =
-                (Movie) getActivity().getIntent().getSerializableExtra(DetailsActivity.MOVIE);
+        // Obtiene el id del canal seleccionado pasado desde el Intent
+        mSelectedId = getActivity().getIntent().getLongExtra(DetailsActivity.CHANNEL_ID, ChannelIds.NO_ID);
+        if (mSelectedId == ChannelIds.NO_ID) {
+            showMainActivity();
+            return;
+        }
+
+        // Si el proceso se reinició la lista se vuelve a cargar y el canal aparece en una instantánea posterior
+        mRepository = FirevisionApplication.getChannelRepository();
+        mRepository.subscribe(mSnapshotListener);
+        mRepository.load();
+    }
+
+    /**
+     * Busca el canal pedido en cada instantánea hasta encontrarlo.
+     */
+    private final ChannelRepository.Listener mSnapshotListener = new ChannelRepository.Listener() {
+        @Override
+        public void onSnapshot(ChannelRepository.Snapshot snapshot) {
+            if (mSelectedMovie != null) {
+                return;
+            }
+            Movie movie = snapshot.findById(mSelectedId);
+            if (movie != null) {
+                bindMovie(movie);
+            } else if (snapshot.isComplete()) {
+                // El canal ya no está en la lista
+                Log.w(TAG, "Channel " + mSelectedId + " not found");
+                showMainActivity();
+            }
+        }
+    };
+
+    /**
+     * Inicializa los componentes para mostrar los detalles de la película.
+     */
+    private void bindMovie(Movie movie) {
+        mSelectedMovie = movie;
+        mPresenterSelector = new ClassPresenterSelector();
+        mAdapter = new ArrayObjectAdapter(mPresenterSelector);
 
-        // Si hay película seleccionada, inicializa los componentes para mostrar detalles
-        if (mSelectedMovie != null) {
-            mPresenterSelector = new ClassPresenterSelector();
-            mAdapter = new ArrayObjectAdapter(mPresenterSelector);
+        setupDetailsOverviewRow();         // Crea fila con detalles y acciones
+        setupDetailsOverviewRowPresenter(); // Configura la apariencia y comportamiento
+        setupRelatedMovieListRow();          // (Comentado) Configura lista de películas relacionadas
 
-            setupDetailsOverviewRow();         // Crea fila con detalles y acciones
-            setupDetailsOverviewRowPresenter(); // Configura la apariencia y comportamiento
-            setupRelatedMovieListRow();          // (Comentado) Configura lista de películas relacionadas
+        setAdapter(mAdapter);               // Asocia el adaptador al fragmento
 
-            setAdapter(mAdapter);               // Asocia el adaptador al fragmento
+        initializeBackground(mSelectedMovie); // Carga y muestra el fondo con efecto parallax
 
-            initializeBackground(mSelectedMovie); // Carga y muestra el fondo con efecto parallax
+        setOnItemViewClickedListener(new ItemViewClickedListener()); // Listener para clics en ítems
+    }
+
+    // Si no hay película, redirige al MainActivity (pantalla principal)
+    private void showMainActivity() {
+        Intent intent = new Intent(getActivity(), MainActivity.class);
+        startActivity(intent);
+    }
 
-            setOnItemViewClickedListener(new ItemViewClickedListener()); // Listener para clics en ítems
-        } else {
-            // Si no hay película, redirige al MainActivity (pantalla principal)
-            Intent intent = new Intent(getActivity(), MainActivity.class);
-            startActivity(intent);
+    @Override
+    public void onDestroy() {
+        if (mRepository != null) {
+            mRepository.unsubscribe(mSnapshotListener);
         }
+        super.onDestroy();
     }
 
     /**
@@ -113,7 +159,8 @@ public class VideoDetailsFragment extends DetailsSupportFragment {
                 .asBitmap()
                 .centerCrop()
                 .error(R.drawable.default_background)  // Imagen por defecto si falla la carga
-                .load(data.getBackgroundImageUrl())    // URL de la imagen de fondo
+                .listener(FailedImageUrls.<Bitmap>listener())
+                .load(FailedImageUrls.unlessBlocked(data.getBackgroundImageUrl()))  // URL de la imagen de fondo
                 .into(new SimpleTarget<Bitmap>() {
                     @Override
                     public void onResourceReady(@NonNull Bitmap bitmap,
@@ -146,9 +193,10 @@ public class VideoDetailsFragment extends DetailsSupportFragment {
 
         // Carga la imagen de la tarjeta (card) de la película y la asigna al row cuando esté lista
         Glide.with(getActivity())
-                .load(mSelectedMovie.getCardImageUrl())
+                .load(FailedImageUrls.unlessBlocked(mSelectedMovie.getCardImageUrl()))
                 .centerCrop()
                 .error(R.drawable.default_background)
+                .listener(FailedImageUrls.<Drawable>listener())
                 .into(new SimpleTarget<Drawable>(width, height) {
                     @Override
                     public void onResourceReady(@NonNull Drawable drawable,
@@ -215,7 +263,7 @@ public class VideoDetailsFragment extends DetailsSupportFragment {
                 if (action.getId() == ACTION_WATCH_TRAILER) {
                     // Al pulsar "Ver tráiler", se lanza PlaybackActivity para reproducir video
                     Intent intent = new Intent(getActivity(), PlaybackActivity.class);
-                    intent.putExtra(DetailsActivity.MOVIE, mSelectedMovie);
+                    intent.putExtra(DetailsActivity.CHANNEL_ID, mSelectedMovie.getId());
                     startActivity(intent);
                 } else {
                     // Para otras acciones, muestra un mensaje Toast con el texto de la acción
@@ -280,7 +328,7 @@ public class VideoDetailsFragment extends DetailsSupportFragment {
                 // Se lanza DetailsActivity para mostrar detalles de la película clickeada,
                 // con animación de transición compartida
                 Intent intent = new Intent(getActivity(), DetailsActivity.class);
-                intent.putExtra(DetailsActivity.MOVIE, movie);
+                intent.putExtra(DetailsActivity.CHANNEL_ID, movie.getId());
 
                 Bundle bundle =
                         ActivityOptionsCompat.makeSceneTransitionAnimation(
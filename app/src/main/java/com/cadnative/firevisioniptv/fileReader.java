@@ -1,133 +1,245 @@
 package com.cadnative.firevisioniptv;
 
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.util.Log;
 
-import java.io.BufferedReader;
+import com.cadnative.firevisioniptv.catalog.ChannelCatalogFormat;
+import com.cadnative.firevisioniptv.catalog.ChannelCatalogReader;
+import com.cadnative.firevisioniptv.catalog.M3uEntry;
+import com.cadnative.firevisioniptv.catalog.M3uTokenizer;
+import com.cadnative.firevisioniptv.catalog.ParallelM3uParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /*
- * Clase para leer un archivo de lista de reproducción M3U desde los assets de la app,
- * y extraer la información de los canales (Channel) en una lista.
+ * Clase para leer un archivo de lista de reproducción M3U (de assets, de un stream o del
+ * almacenamiento del dispositivo) y extraer la información de los canales (Channel).
+ * Los canales se entregan en lotes a medida que se leen y no se acumulan: quien los recibe
+ * copia lo que necesita (a Realm, a la ChannelTable) y los suelta, así el heap no crece
+ * con el tamaño de la lista.
  */
 public class fileReader {
 
     // Tag para mensajes de log
     private static final String TAG = "FileReader";
 
-    // Constantes para detectar etiquetas y formatos dentro del archivo M3U
-    private static final String EXT_INF_SP = "#EXTINF:"; // Línea que contiene metadatos del canal
-    private static final String KOD_IP_DROP_TYPE = "#KODIPROP:inputstream.adaptive.license_type="; // Tipo de DRM
-    private static final String KOD_IP_DROP_KEY = "#KODIPROP:inputstream.adaptive.license_key=";   // Clave DRM
-    private static final String TVG_NAME = "tvg-name=";    // Nombre del canal (atributo)
-    private static final String TVG_ID = "tvg-id=";        // ID del canal (atributo)
-    private static final String TVG_LOGO = "tvg-logo=";    // Logo del canal (atributo)
-    private static final String GROUP_TITLE = "group-title="; // Grupo al que pertenece el canal
-    private static final String COMMA = ",";               // Separador para dividir datos
-    private static final String HTTP = "http://";          // URL HTTP
-    private static final String HTTPS = "https://";        // URL HTTPS
-
-    // Lista para almacenar los objetos Channel extraídos del archivo
-    private final List<Channel> channelList;
-
-    // Constructor inicializa la lista vacía
-    public fileReader() {
-        this.channelList = new ArrayList<>();
+    /**
+     * Recibe los canales en lotes a medida que se van leyendo, para que la UI
+     * pueda mostrarlos antes de terminar de procesar toda la lista.
+     * La lista se reutiliza para el lote siguiente y no debe guardarse. Los canales que lee
+     * fileReader pueden conservarse; los que entrega ChannelStore.read son objetos de Realm
+     * que solo valen durante la llamada.
+     */
+    public interface BatchListener {
+        void onBatch(List<Channel> batch);
     }
 
     /**
-     * Método que lee el archivo "playlist.m3u" desde los assets y construye una lista de canales.
-     * @param assetManager para acceder a los archivos dentro del paquete assets
-     * @return lista de canales extraídos del archivo, o null si no se encontraron canales
+     * Lee la lista {@code playlistAsset} de los assets, usando su catálogo binario si existe,
+     * y entrega los canales en lotes de {@code batchSize} (el último puede ser más pequeño).
+     * @param playlistAsset nombre del archivo M3U dentro de assets
+     * @param listener receptor de los lotes; se llama en el hilo que lee el archivo
+     * @return cantidad de canales leídos (0 si no se encontró ninguno)
      */
-    public List<Channel> readFile(AssetManager assetManager) {
-
-        // Abrimos el archivo con BufferedReader para leer línea a línea
-        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(assetManager.open("playlist.m3u")))) {
-            String currentLine;     // Línea actual leída del archivo
-            Channel channel = null; // Variable temporal para ir creando cada canal
-
-            // Recorremos cada línea hasta llegar al final del archivo
-            while ((currentLine = bufferedReader.readLine()) != null) {
-                try {
-                    // Ajustamos el formato para separar mejor las comas y quitar comillas
-                    currentLine = currentLine.replace(",", " ,");
-                    currentLine = currentLine.replace("\"", "");
-
-                    // Si la línea comienza con la etiqueta de metadatos de canal #EXTINF:
-                    if (currentLine.startsWith(EXT_INF_SP)) {
-                        channel = new Channel(); // Creamos un nuevo canal
-                        // Separamos la línea en dos partes por la primera coma
-                        String[] parts = currentLine.split(",");
-                        if (parts.length > 1) {
-                            // La parte anterior a la coma contiene los atributos, separados por espacio
-                            String[] attributes = parts[0].split(" ");
-                            // Recorremos cada atributo para buscar y asignar datos al canal
-                            for (String attr : attributes) {
-                                if (attr.startsWith(TVG_ID)) {
-                                    String[] attributesSplit= attr.split("=");
-                                    if (attributesSplit.length > 1) {
-                                        channel.setChannelId(attributesSplit[1]);
-                                    }
-                                } else if (attr.startsWith(TVG_NAME)) {
-                                    String[] attributesSplit= attr.split("=");
-                                    if (attributesSplit.length > 1) {
-                                        channel.setChannelName(attributesSplit[1]);
-                                    }
-                                } else if (attr.startsWith(TVG_LOGO)) {
-                                    String[] attributesSplit= attr.split("=");
-                                    if (attributesSplit.length > 1) {
-                                        channel.setChannelImg(attributesSplit[1]);
-                                    }
-                                } else if (attr.startsWith(GROUP_TITLE)) {
-                                    String[] attributesSplit= attr.split("=");
-                                    if (attributesSplit.length > 1) {
-                                        channel.setChannelGroup(attributesSplit[1]);
-                                    }
-                                }
-                            }
-                            // El nombre real del canal suele estar después de la coma, se actualiza para seguridad
-                            channel.setChannelName(parts[1].trim());
-                        }
-                    }
-                    // Si la línea comienza con el tipo de licencia DRM, se asigna a channel
-                    else if (currentLine.startsWith(KOD_IP_DROP_TYPE)) {
-                        if (channel != null) {
-                            channel.setChannelDrmType(currentLine.split(KOD_IP_DROP_TYPE)[1].trim());
-                        }
-                    }
-                    // Si la línea comienza con la clave DRM, se asigna a channel
-                    else if (currentLine.startsWith(KOD_IP_DROP_KEY)) {
-                        if (channel != null) {
-                            channel.setChannelDrmKey(currentLine.split(KOD_IP_DROP_KEY)[1].trim());
-                        }
+    public int readFile(AssetManager assetManager, String playlistAsset, int batchSize,
+                        BatchListener listener) {
+        // Primero se intenta con el catálogo binario generado en compilación
+        ByteBuffer catalog = openCatalog(assetManager, ChannelCatalogFormat.catalogName(playlistAsset));
+        if (catalog != null) {
+            try {
+                ChannelCatalogReader reader = ChannelCatalogReader.open(catalog);
+                ChannelCollector collector = new ChannelCollector(batchSize, listener);
+                reader.read(collector);
+                return collector.finish();
+            } catch (IOException e) {
+                // Catálogo inválido: se vuelve a parsear el texto
+                Log.w(TAG, "Ignoring channel catalog: " + e.getMessage());
+            }
+        }
+
+        try (InputStream in = assetManager.open(playlistAsset)) {
+            return readStream(in, batchSize, listener);
+        } catch (IOException e) {
+            // Error al abrir el archivo
+            Log.e(TAG, "Error reading file: " + e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Lee una lista M3U desde un stream con el tokenizador de una sola pasada, entregando
+     * los canales en lotes a {@code listener}.
+     * @param in stream con el contenido M3U (no se cierra aquí)
+     * @return cantidad de canales leídos (0 si no se encontró ninguno)
+     */
+    public int readStream(InputStream in, int batchSize, BatchListener listener) {
+        ChannelCollector collector = new ChannelCollector(batchSize, listener);
+        try {
+            new M3uTokenizer(collector).parse(in);
+        } catch (IOException e) {
+            // Error al leer el archivo; se conservan los canales leídos hasta el momento
+            Log.e(TAG, "Error reading file: " + e.getMessage(), e);
+        }
+        return collector.finish();
+    }
+
+    /**
+     * Lee una lista M3U guardada en el almacenamiento del dispositivo (por ejemplo, una lista
+     * grande copiada por el usuario). El archivo se mapea en memoria y el tokenizador recorre
+     * sus bytes directamente; como además los canales solo viven lo que dura su lote, el heap
+     * queda muy por debajo del tamaño del archivo.
+     * @param file archivo M3U local
+     * @return cantidad de canales leídos (0 si no se encontró ninguno)
+     */
+    public int readFile(File file, int batchSize, BatchListener listener) {
+        final ChannelCollector collector = new ChannelCollector(batchSize, listener);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Playlist too large: " + size + " bytes");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (useParallelParse(size)) {
+                // Listas grandes: se reparten entre todos los núcleos; cada trozo llega en orden
+                // apenas termina, así los lotes siguen saliendo mientras se parsea el resto
+                new ParallelM3uParser<>(ForkJoinPool.commonPool(), new ParallelM3uParser.EntryMapper<Channel>() {
+                    @Override
+                    public Channel map(M3uEntry entry) {
+                        return toChannel(entry);
                     }
-                    // Si la línea es una URL (http o https), se asigna al canal y se agrega a la lista
-                    else if (currentLine.startsWith(HTTP) || currentLine.startsWith(HTTPS)) {
-                        if (channel != null) {
-                            channel.setChannelUrl(currentLine);
-                            channelList.add(channel);
-                        }
+                }).parse(mapped, 0, (int) size, new ParallelM3uParser.ChunkListener<Channel>() {
+                    @Override
+                    public void onChunk(List<Channel> channels) {
+                        collector.addAll(channels);
                     }
-                } catch (Exception e) {
-                    // En caso de error al procesar una línea, se registra en log sin detener el proceso
-                    Log.e(TAG, "Error reading file: " + e.getMessage(), e);
-                }
+                });
+            } else {
+                new M3uTokenizer(collector).parse(mapped, 0, (int) size);
             }
         } catch (IOException e) {
-            // Error al abrir o leer el archivo
+            // Error al abrir o mapear el archivo
             Log.e(TAG, "Error reading file: " + e.getMessage(), e);
         }
+        return collector.finish();
+    }
+
+    // El modo paralelo solo compensa con varios núcleos y listas de varios trozos
+    private static boolean useParallelParse(long size) {
+        return ForkJoinPool.commonPool().getParallelism() > 1
+                && size >= 2L * ParallelM3uParser.MIN_CHUNK_BYTES;
+    }
 
-        // Si se encontraron canales, se retorna la lista; si no, retorna null y registra error
-        if (!channelList.isEmpty()) {
-            return channelList;
-        } else {
-            Log.e(TAG, "Error: No channels found in the file");
+    /**
+     * Abre un catálogo binario de assets: se mapea en memoria si está guardado sin comprimir,
+     * o se lee completo de una sola vez si no.
+     * @return el contenido del catálogo, o null si el APK no lo incluye
+     */
+    private static ByteBuffer openCatalog(AssetManager assetManager, String name) {
+        try (AssetFileDescriptor descriptor = assetManager.openFd(name);
+             FileInputStream in = descriptor.createInputStream()) {
+            return in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength());
+        } catch (FileNotFoundException e) {
+            // No existe o está comprimido; se intenta como stream más abajo
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot map channel catalog " + name + ": " + e.getMessage());
+        }
+
+        try (InputStream in = assetManager.open(name)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } catch (IOException e) {
             return null;
         }
     }
+
+    /**
+     * Convierte cada entrada en un Channel y lo agrega al lote en curso, que se entrega
+     * al listener cada {@code batchSize} canales.
+     */
+    private static final class ChannelCollector implements M3uTokenizer.Listener {
+        private final int batchSize;
+        private final BatchListener listener;
+        private final List<Channel> batch;
+        private int count;        // Canales entregados o en el lote en curso
+
+        ChannelCollector(int batchSize, BatchListener listener) {
+            this.batchSize = batchSize;
+            this.listener = listener;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void onEntry(M3uEntry entry) {
+            add(toChannel(entry));
+        }
+
+        /**
+         * Agrega canales ya convertidos (por ejemplo, por el parser paralelo), en orden.
+         */
+        void addAll(List<Channel> channels) {
+            for (Channel channel : channels) {
+                add(channel);
+            }
+        }
+
+        private void add(Channel channel) {
+            batch.add(channel);
+            count++;
+            if (batch.size() >= batchSize) {
+                deliverBatch();
+            }
+        }
+
+        /**
+         * Entrega el último lote incompleto y devuelve la cantidad de canales leídos.
+         */
+        int finish() {
+            if (!batch.isEmpty()) {
+                deliverBatch();
+            }
+            if (count == 0) {
+                Log.e(TAG, "Error: No channels found in the file");
+            }
+            return count;
+        }
+
+        private void deliverBatch() {
+            listener.onBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Copia los valores de la entrada (que el tokenizador reutiliza) a un nuevo Channel.
+     */
+    static Channel toChannel(M3uEntry entry) {
+        Channel channel = new Channel();
+        channel.setChannelId(entry.getChannelId());
+        channel.setChannelName(entry.getName());
+        channel.setChannelImg(entry.getLogo());
+        channel.setChannelGroup(entry.getGroup());
+        channel.setChannelUrl(entry.getUrl());
+        channel.setChannelDrmType(entry.getDrmType());
+        channel.setChannelDrmKey(entry.getDrmKey());
+        channel.setChannelAttributes(entry.getAttributes());
+        return channel;
+    }
 }
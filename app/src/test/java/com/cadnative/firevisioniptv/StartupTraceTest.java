@@ -0,0 +1,110 @@
+package com.cadnative.firevisioniptv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+/**
+ * Fases y resumen de StartupTrace con el reloj de Robolectric, que solo avanza cuando la prueba
+ * lo pide. Usa una Application vacía para no inicializar Realm ni Firebase.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class StartupTraceTest {
+
+    @Before
+    public void setUp() {
+        StartupTrace.reset();
+    }
+
+    @After
+    public void tearDown() {
+        StartupTrace.reset();
+    }
+
+    @Test
+    public void summaryListsPhasesInOrderOfCompletion() {
+        StartupTrace.begin(StartupTrace.APPLICATION);
+        advance(40);
+        StartupTrace.end(StartupTrace.APPLICATION);
+
+        StartupTrace.begin(StartupTrace.MAIN_ACTIVITY);
+        StartupTrace.begin(StartupTrace.FIREBASE);
+        advance(100);
+        StartupTrace.end(StartupTrace.FIREBASE);
+        advance(20);
+        StartupTrace.end(StartupTrace.MAIN_ACTIVITY);
+
+        assertEquals("launch fullyDrawn=900ms Application.onCreate=40ms"
+                        + " FirebaseApp.initializeApp=100ms MainActivity.onCreate=120ms",
+                StartupTrace.summary(900));
+    }
+
+    @Test
+    public void asyncPhaseIsRecordedWhenItEnds() {
+        StartupTrace.begin(StartupTrace.LOAD_ROWS);
+        StartupTrace.beginAsync(StartupTrace.FIRST_ROWS);
+        advance(5);
+        StartupTrace.end(StartupTrace.LOAD_ROWS);
+        advance(300);
+
+        assertEquals("launch fullyDrawn=0ms MainFragment.loadRows=5ms", StartupTrace.summary(0));
+
+        StartupTrace.endAsync(StartupTrace.FIRST_ROWS);
+
+        assertEquals("launch fullyDrawn=0ms MainFragment.loadRows=5ms MainFragment.firstRows=305ms",
+                StartupTrace.summary(0));
+    }
+
+    @Test
+    public void endWithoutBeginIsIgnored() {
+        StartupTrace.end(StartupTrace.COMMIT_FRAGMENT);
+        StartupTrace.endAsync(StartupTrace.FIRST_ROWS);
+
+        assertEquals("launch fullyDrawn=10ms", StartupTrace.summary(10));
+    }
+
+    @Test
+    public void onlyTheFirstReportCounts() {
+        assertEquals(-1, StartupTrace.getFullyDrawnMs());
+        StartupTrace.beginAsync(StartupTrace.FIRST_ROWS);
+        advance(250);
+
+        StartupTrace.reportFullyDrawn(null);
+        // El inicio del proceso lo fija Robolectric, así que solo importa que quedó medido
+        long fullyDrawn = StartupTrace.getFullyDrawnMs();
+        assertNotEquals(-1, fullyDrawn);
+
+        // Las fases posteriores al informe ya no forman parte del arranque
+        StartupTrace.begin(StartupTrace.LOAD_ROWS);
+        advance(50);
+        StartupTrace.end(StartupTrace.LOAD_ROWS);
+        StartupTrace.reportFullyDrawn(null);
+
+        assertEquals(fullyDrawn, StartupTrace.getFullyDrawnMs());
+        assertEquals("launch fullyDrawn=1ms MainFragment.firstRows=250ms", StartupTrace.summary(1));
+    }
+
+    @Test
+    public void budgetIsInclusive() {
+        assertFalse(StartupTrace.isOverBudget(StartupTrace.FULLY_DRAWN_BUDGET_MS));
+        assertTrue(StartupTrace.isOverBudget(StartupTrace.FULLY_DRAWN_BUDGET_MS + 1));
+    }
+
+    private static void advance(long millis) {
+        ShadowSystemClock.advanceBy(Duration.ofMillis(millis));
+    }
+}
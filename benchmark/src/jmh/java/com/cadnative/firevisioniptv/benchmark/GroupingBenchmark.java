@@ -0,0 +1,78 @@
+package com.cadnative.firevisioniptv.benchmark;
+
+import com.cadnative.firevisioniptv.catalog.CategoryIndex;
+import com.cadnative.firevisioniptv.catalog.ChannelTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Armado de las filas del browse a partir de la tabla. MainFragment.RowModel es código
+ * Android, así que se mide su equivalente sobre el catálogo: las listas de filas de cada
+ * categoría leídas del CategoryIndex (lo que hace hoy) contra separar el group-title de
+ * cada canal y agrupar en un TreeMap (lo que hacía antes de indexar al cargar).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GroupingBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int channels;
+
+    private ChannelTable mTable;
+
+    @Setup
+    public void setUp() {
+        mTable = SyntheticPlaylist.ingest(SyntheticPlaylist.generate(channels));
+    }
+
+    @Benchmark
+    public TreeMap<String, int[]> categoryIndex() {
+        CategoryIndex categories = mTable.getCategories();
+        int size = mTable.size();
+        TreeMap<String, int[]> groups = new TreeMap<>();
+        for (int ordinal = 0; ordinal < categories.getCategoryCount(); ordinal++) {
+            int[] rows = categories.getRows(ordinal, size);
+            if (rows.length > 0) {
+                groups.put(categories.getName(ordinal), rows);
+            }
+        }
+        int[] uncategorized = categories.getUncategorizedRows(size);
+        if (uncategorized.length > 0) {
+            groups.put("", uncategorized);
+        }
+        return groups;
+    }
+
+    @Benchmark
+    public TreeMap<String, List<Integer>> splitPerChannel() {
+        TreeMap<String, List<Integer>> groups = new TreeMap<>();
+        for (int row = 0; row < mTable.size(); row++) {
+            List<String> keys = CategoryIndex.split(mTable.getGroup(row));
+            if (keys.isEmpty()) {
+                keys.add("");
+            }
+            for (String key : keys) {
+                List<Integer> rows = groups.get(key);
+                if (rows == null) {
+                    rows = new ArrayList<>();
+                    groups.put(key, rows);
+                }
+                rows.add(row);
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,82 @@
+package com.cadnative.firevisioniptv.benchmark;
+
+import com.cadnative.firevisioniptv.catalog.ChannelTable;
+import com.cadnative.firevisioniptv.catalog.M3uEntry;
+import com.cadnative.firevisioniptv.catalog.M3uTokenizer;
+import com.cadnative.firevisioniptv.catalog.ParallelM3uParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Parseo de la lista completa: el tokenizador de un solo hilo, el parser en paralelo
+ * (como en fileReader) y el parseo más la carga en ChannelTable, que es lo que paga
+ * el arranque sin copia local.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParseBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int channels;
+
+    private ByteBuffer mPlaylist;
+    private ParallelM3uParser<String> mParallelParser;
+
+    @Setup
+    public void setUp() {
+        mPlaylist = ByteBuffer.wrap(SyntheticPlaylist.generate(channels));
+        mParallelParser = new ParallelM3uParser<>(ForkJoinPool.commonPool(),
+                new ParallelM3uParser.EntryMapper<String>() {
+                    @Override
+                    public String map(M3uEntry entry) {
+                        return entry.getName();
+                    }
+                });
+    }
+
+    @Benchmark
+    public void tokenize(final Blackhole blackhole) {
+        new M3uTokenizer(new M3uTokenizer.Listener() {
+            @Override
+            public void onEntry(M3uEntry entry) {
+                blackhole.consume(entry.getName());
+            }
+        }).parse(mPlaylist, 0, mPlaylist.limit());
+    }
+
+    @Benchmark
+    public void parseParallel(final Blackhole blackhole) {
+        mParallelParser.parse(mPlaylist, 0, mPlaylist.limit(), new ParallelM3uParser.ChunkListener<String>() {
+            @Override
+            public void onChunk(List<String> entries) {
+                blackhole.consume(entries);
+            }
+        });
+    }
+
+    @Benchmark
+    public ChannelTable parseIntoTable() {
+        final ChannelTable table = new ChannelTable();
+        new M3uTokenizer(new M3uTokenizer.Listener() {
+            @Override
+            public void onEntry(M3uEntry entry) {
+                SyntheticPlaylist.addTo(table, entry);
+            }
+        }).parse(mPlaylist, 0, mPlaylist.limit());
+        return table;
+    }
+}
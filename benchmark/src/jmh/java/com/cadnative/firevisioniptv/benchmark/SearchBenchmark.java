@@ -0,0 +1,51 @@
+package com.cadnative.firevisioniptv.benchmark;
+
+import com.cadnative.firevisioniptv.catalog.ChannelTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Búsqueda por tecla: el mismo filtro lineal que SearchResultProvider (nombre en minúsculas
+ * que contiene el texto), recorriendo la tabla para cada prefijo que va escribiendo el usuario.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    // Lo que se escribe tecla por tecla buscando "canal 12"
+    private static final String[] KEYSTROKES = {"c", "ca", "can", "cana", "canal", "canal ", "canal 1", "canal 12"};
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int channels;
+
+    private ChannelTable mTable;
+
+    @Setup
+    public void setUp() {
+        mTable = SyntheticPlaylist.ingest(SyntheticPlaylist.generate(channels));
+    }
+
+    @Benchmark
+    public void typeQuery(Blackhole blackhole) {
+        for (String needle : KEYSTROKES) {
+            int matches = 0;
+            for (int row = 0; row < mTable.size(); row++) {
+                if (mTable.getName(row).toLowerCase().contains(needle)) {
+                    matches++;
+                }
+            }
+            blackhole.consume(matches);
+        }
+    }
+}
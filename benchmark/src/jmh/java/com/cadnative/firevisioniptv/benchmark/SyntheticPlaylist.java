@@ -0,0 +1,80 @@
+package com.cadnative.firevisioniptv.benchmark;
+
+import com.cadnative.firevisioniptv.catalog.ChannelTable;
+import com.cadnative.firevisioniptv.catalog.M3uEntry;
+import com.cadnative.firevisioniptv.catalog.M3uTokenizer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/*
+ * Lista M3U sintética con la forma de las listas reales: unas 40 categorías, alrededor
+ * de un 10% de canales en dos categorías ("Deportes;Noticias"), logos y URLs con pocos
+ * hosts distintos y algunos canales con DRM. Siempre se genera con la misma semilla,
+ * así los resultados de distintas corridas son comparables.
+ */
+final class SyntheticPlaylist {
+
+    static final int CATEGORY_COUNT = 40;
+
+    private static final long SEED = 0x5EEDL;
+
+    private static final String[] HOSTS = {
+            "http://cdn1.example.com", "https://live.example.net", "http://iptv.example.org:8080"
+    };
+
+    private SyntheticPlaylist() {
+    }
+
+    static String category(int index) {
+        return "Categoría " + index;
+    }
+
+    /**
+     * Texto M3U con {@code channels} entradas, codificado en UTF-8.
+     */
+    static byte[] generate(int channels) {
+        Random random = new Random(SEED);
+        StringBuilder builder = new StringBuilder(channels * 220).append("#EXTM3U\n");
+        for (int i = 0; i < channels; i++) {
+            String group = category(random.nextInt(CATEGORY_COUNT));
+            if (random.nextInt(10) == 0) {
+                group += ";" + category(random.nextInt(CATEGORY_COUNT));
+            }
+            String host = HOSTS[random.nextInt(HOSTS.length)];
+            builder.append("#EXTINF:-1 tvg-id=\"ch").append(i).append(".example\"")
+                    .append(" tvg-name=\"Canal ").append(i).append("\"")
+                    .append(" tvg-logo=\"").append(host).append("/logos/").append(i).append(".png\"")
+                    .append(" tvg-chno=\"").append(i + 1).append("\"")
+                    .append(" group-title=\"").append(group).append("\",Canal ").append(i).append(" HD\n");
+            if (random.nextInt(20) == 0) {
+                builder.append("#KODIPROP:inputstream.adaptive.license_type=clearkey\n")
+                        .append("#KODIPROP:inputstream.adaptive.license_key=")
+                        .append(Long.toHexString(random.nextLong())).append(":")
+                        .append(Long.toHexString(random.nextLong())).append("\n");
+            }
+            builder.append(host).append("/live/").append(i).append("/index.m3u8\n");
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tabla con los canales de {@code playlist}, como la que arma el hilo de carga.
+     */
+    static ChannelTable ingest(byte[] playlist) {
+        final ChannelTable table = new ChannelTable();
+        new M3uTokenizer(new M3uTokenizer.Listener() {
+            @Override
+            public void onEntry(M3uEntry entry) {
+                addTo(table, entry);
+            }
+        }).parse(ByteBuffer.wrap(playlist), 0, playlist.length);
+        return table;
+    }
+
+    static int addTo(ChannelTable table, M3uEntry entry) {
+        return table.add(entry.getChannelId(), entry.getName(), entry.getLogo(), entry.getGroup(),
+                entry.getUrl(), entry.getDrmType(), entry.getDrmKey(), entry.getAttributes(), null);
+    }
+}
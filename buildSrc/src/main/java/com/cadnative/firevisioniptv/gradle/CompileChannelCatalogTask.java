@@ -0,0 +1,57 @@
+package com.cadnative.firevisioniptv.gradle;
+
+import com.cadnative.firevisioniptv.catalog.ChannelCatalogFormat;
+import com.cadnative.firevisioniptv.catalog.ChannelCatalogWriter;
+import com.cadnative.firevisioniptv.catalog.M3uTokenizer;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Tarea que compila cada lista M3U de assets a un catálogo binario ({@link ChannelCatalogFormat})
+ * para que la app no tenga que volver a parsear el texto en cada arranque.
+ */
+public abstract class CompileChannelCatalogTask extends DefaultTask {
+
+    // Listas M3U de entrada
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public abstract ConfigurableFileCollection getPlaylists();
+
+    // Carpeta de assets generados donde se escriben los catálogos
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+
+    @TaskAction
+    public void compile() throws IOException {
+        File outputDir = getOutputDir().get().getAsFile();
+        for (File playlist : getPlaylists()) {
+            ChannelCatalogWriter writer = new ChannelCatalogWriter();
+            try (InputStream in = new BufferedInputStream(new FileInputStream(playlist))) {
+                new M3uTokenizer(writer).parse(in);
+            }
+
+            File catalog = new File(outputDir, ChannelCatalogFormat.catalogName(playlist.getName()));
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(catalog))) {
+                writer.writeTo(out);
+            }
+            getLogger().info("Compiled {} channels from {} into {}",
+                    writer.getRecordCount(), playlist.getName(), catalog.getName());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Índice de categorías de un {@link ChannelTable}, armado mientras se agregan los canales.
+ *
+ * El group-title puede traer varias categorías separadas por ';' ("Animation;Kids"), y al unir
+ * listas repetidas también se guardan así. Cada categoría recibe un ordinal y una lista de las
+ * filas que la contienen, en orden; un canal con dos categorías aparece en las dos listas.
+ * Los canales sin categoría se guardan en una lista aparte.
+ *
+ * Igual que la tabla, se escribe desde un solo hilo y lo ya publicado se puede leer desde
+ * cualquier otro. La lista de cada categoría es un {@link Posting} inmutable (arreglo y tamaño
+ * juntos) que se reemplaza en cada alta con una sola escritura volatile: quien lee ve siempre
+ * un arreglo y un tamaño que corresponden entre sí.
+ */
+public final class CategoryIndex {
+
+    // Separador de categorías dentro de group-title
+    public static final char SEPARATOR = ';';
+
+    /**
+     * Filas de una categoría. Al agregar se escribe en el arreglo después de {@code size}, posición
+     * que nadie lee todavía, y se publica un Posting nuevo con el tamaño nuevo; si el arreglo
+     * está lleno, el nuevo usa una copia más grande.
+     */
+    private static final class Posting {
+        static final Posting EMPTY = new Posting(new int[0], 0);
+
+        final int[] rows;
+        final int size;
+
+        Posting(int[] rows, int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+
+        Posting append(int row) {
+            int[] grown = rows;
+            if (size == grown.length) {
+                grown = Arrays.copyOf(grown, Math.max(8, grown.length * 2));
+            }
+            grown[size] = row;
+            return new Posting(grown, size + 1);
+        }
+    }
+
+    // Posting de cada ordinal; cada set es una escritura volatile. Al crecer se copia y se reemplaza
+    private volatile AtomicReferenceArray<Posting> mPostings = new AtomicReferenceArray<>(16);
+    private volatile String[] mNames = new String[16];
+    private volatile int mCount;
+    private final Map<String, Integer> mOrdinals = new HashMap<>();
+
+    private volatile Posting mUncategorized = Posting.EMPTY;
+
+    /**
+     * Agrega la fila a cada una de las categorías de {@code group}.
+     * Las filas se agregan en orden creciente.
+     */
+    void add(int row, String group) {
+        List<String> categories = split(group);
+        if (categories.isEmpty()) {
+            mUncategorized = mUncategorized.append(row);
+            return;
+        }
+        for (int c = 0; c < categories.size(); c++) {
+            int ordinal = ordinal(categories.get(c));
+            AtomicReferenceArray<Posting> postings = mPostings;
+            postings.set(ordinal, postings.get(ordinal).append(row));
+        }
+    }
+
+    // Cantidad de categorías distintas
+    public int getCategoryCount() {
+        return mCount;
+    }
+
+    public String getName(int ordinal) {
+        return mNames[ordinal];
+    }
+
+    /**
+     * Filas de la categoría, en orden, que sean menores que {@code rowLimit}
+     * (la cantidad de filas publicadas que ve quien lee).
+     */
+    public int[] getRows(int ordinal, int rowLimit) {
+        return prefix(mPostings.get(ordinal), rowLimit);
+    }
+
+    /**
+     * Filas sin categoría, en orden, que sean menores que {@code rowLimit}.
+     */
+    public int[] getUncategorizedRows(int rowLimit) {
+        return prefix(mUncategorized, rowLimit);
+    }
+
+    /**
+     * Separa las categorías de un group-title, sin espacios alrededor, sin vacías ni repetidas.
+     */
+    public static List<String> split(String group) {
+        List<String> categories = new ArrayList<>(1);
+        if (group == null) {
+            return categories;
+        }
+        int start = 0;
+        while (start <= group.length()) {
+            int end = group.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = group.length();
+            }
+            String category = group.substring(start, end).trim();
+            if (!category.isEmpty() && !categories.contains(category)) {
+                categories.add(category);
+            }
+            start = end + 1;
+        }
+        return categories;
+    }
+
+    private int ordinal(String category) {
+        Integer ordinal = mOrdinals.get(category);
+        if (ordinal == null) {
+            String[] names = mNames;
+            if (mCount == names.length) {
+                names = Arrays.copyOf(names, names.length * 2);
+            }
+            names[mCount] = category;
+            mNames = names;
+            ordinal = mCount;
+            AtomicReferenceArray<Posting> postings = mPostings;
+            if (ordinal == postings.length()) {
+                AtomicReferenceArray<Posting> grown = new AtomicReferenceArray<>(postings.length() * 2);
+                for (int i = 0; i < ordinal; i++) {
+                    grown.set(i, postings.get(i));
+                }
+                postings = grown;
+            }
+            postings.set(ordinal, Posting.EMPTY);
+            mPostings = postings;
+            mOrdinals.put(category, ordinal);
+            // El ordinal se publica recién cuando su nombre y su Posting ya se pueden leer
+            mCount = ordinal + 1;
+        }
+        return ordinal;
+    }
+
+    // Las filas están ordenadas, así que basta con cortar en la primera que no llega al límite
+    private static int[] prefix(Posting posting, int rowLimit) {
+        int[] rows = posting.rows;
+        int end = posting.size;
+        while (end > 0 && rows[end - 1] >= rowLimit) {
+            end--;
+        }
+        return Arrays.copyOf(rows, end);
+    }
+}
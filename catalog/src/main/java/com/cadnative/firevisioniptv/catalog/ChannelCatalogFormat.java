@@ -0,0 +1,55 @@
+package com.cadnative.firevisioniptv.catalog;
+
+/**
+ * Formato binario del catálogo de canales que se genera en tiempo de compilación
+ * a partir de las listas M3U de assets.
+ *
+ * Todos los enteros son de 32 bits, big-endian:
+ * <pre>
+ * cabecera:   MAGIC, VERSION, recordCount, stringCount, blobLength
+ * strings:    (stringCount + 1) offsets dentro del blob, seguidos del blob
+ *             y relleno hasta múltiplo de 4. Cada valor son los bytes UTF-8 de un string,
+ *             salvo los de FIELD_ATTRIBUTES, que son los bytes de M3uAttributes sin convertir
+ * registros:  recordCount × RECORD_FIELDS índices de string (NO_STRING = null)
+ * </pre>
+ * No hay índice de grupos: los registros de las distintas listas se combinan al cargarlas
+ * (PlaylistMerger), así que sus posiciones no son las filas del ChannelTable, y el
+ * CategoryIndex se arma igual mientras se agregan los canales.
+ */
+public final class ChannelCatalogFormat {
+
+    public static final int MAGIC = 0x46564331; // "FVC1"
+    // 3: los atributos se guardan como bytes y no como un string UTF-8; 4: sin índice de grupos
+    public static final int VERSION = 4;
+
+    // Extensión de los catálogos generados (se guardan sin comprimir en el APK)
+    public static final String EXTENSION = "fvc";
+
+    // Valor de un campo sin string
+    static final int NO_STRING = -1;
+
+    // Campos de cada registro de ancho fijo, en este orden
+    static final int FIELD_ID = 0;
+    static final int FIELD_NAME = 1;
+    static final int FIELD_LOGO = 2;
+    static final int FIELD_GROUP = 3;
+    static final int FIELD_URL = 4;
+    static final int FIELD_DRM_TYPE = 5;
+    static final int FIELD_DRM_KEY = 6;
+    static final int FIELD_ATTRIBUTES = 7;  // Atributos extendidos; se guardan y se leen como bytes, sin decodificar
+    static final int RECORD_FIELDS = 8;
+
+    static final int HEADER_INTS = 5;
+
+    private ChannelCatalogFormat() {
+    }
+
+    /**
+     * Nombre del catálogo generado para una lista, por ejemplo "playlist.m3u" -> "playlist.fvc".
+     */
+    public static String catalogName(String playlistName) {
+        int dot = playlistName.lastIndexOf('.');
+        String base = dot > 0 ? playlistName.substring(0, dot) : playlistName;
+        return base + "." + EXTENSION;
+    }
+}
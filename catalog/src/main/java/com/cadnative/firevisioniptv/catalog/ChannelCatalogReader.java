@@ -0,0 +1,108 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lee un catálogo generado por {@link ChannelCatalogWriter} directamente desde un
+ * ByteBuffer (un archivo mapeado en memoria o un arreglo leído de una sola vez).
+ * Cada string de la tabla se decodifica como mucho una vez, y solo cuando se usa.
+ */
+public final class ChannelCatalogReader {
+
+    private final ByteBuffer mBuffer;
+    private final int mRecordCount;
+    private final int mStringCount;
+
+    // Posiciones absolutas de cada sección dentro del buffer
+    private final int mOffsetsStart;
+    private final int mBlobStart;
+    private final int mRecordsStart;
+
+    // Strings ya decodificados, por índice
+    private final String[] mStrings;
+
+    private ChannelCatalogReader(ByteBuffer buffer) throws IOException {
+        mBuffer = buffer;
+        int base = buffer.position();
+        if (buffer.remaining() < ChannelCatalogFormat.HEADER_INTS * 4
+                || buffer.getInt(base) != ChannelCatalogFormat.MAGIC) {
+            throw new IOException("Not a channel catalog");
+        }
+        int version = buffer.getInt(base + 4);
+        if (version != ChannelCatalogFormat.VERSION) {
+            throw new IOException("Unsupported channel catalog version " + version);
+        }
+        mRecordCount = buffer.getInt(base + 8);
+        mStringCount = buffer.getInt(base + 12);
+        int blobLength = buffer.getInt(base + 16);
+
+        mOffsetsStart = base + ChannelCatalogFormat.HEADER_INTS * 4;
+        mBlobStart = mOffsetsStart + (mStringCount + 1) * 4;
+        mRecordsStart = mBlobStart + blobLength + (4 - blobLength % 4) % 4;
+        int end = mRecordsStart + mRecordCount * ChannelCatalogFormat.RECORD_FIELDS * 4;
+        if (end > buffer.limit()) {
+            throw new IOException("Truncated channel catalog");
+        }
+        mStrings = new String[mStringCount];
+    }
+
+    /**
+     * Valida la cabecera y prepara la lectura desde la posición actual del buffer.
+     * @throws IOException si el buffer no contiene un catálogo válido de esta versión
+     */
+    public static ChannelCatalogReader open(ByteBuffer buffer) throws IOException {
+        return new ChannelCatalogReader(buffer);
+    }
+
+    public int getRecordCount() {
+        return mRecordCount;
+    }
+
+    /**
+     * Entrega todos los registros en el orden original de la lista, reutilizando
+     * la misma instancia de {@link M3uEntry}, igual que {@link M3uTokenizer}.
+     */
+    public void read(M3uTokenizer.Listener listener) {
+        M3uEntry entry = new M3uEntry();
+        for (int i = 0; i < mRecordCount; i++) {
+            int base = mRecordsStart + i * ChannelCatalogFormat.RECORD_FIELDS * 4;
+            entry.channelId = string(mBuffer.getInt(base + ChannelCatalogFormat.FIELD_ID * 4));
+            entry.name = string(mBuffer.getInt(base + ChannelCatalogFormat.FIELD_NAME * 4));
+            entry.logo = string(mBuffer.getInt(base + ChannelCatalogFormat.FIELD_LOGO * 4));
+            entry.group = string(mBuffer.getInt(base + ChannelCatalogFormat.FIELD_GROUP * 4));
+            entry.url = string(mBuffer.getInt(base + ChannelCatalogFormat.FIELD_URL * 4));
+            entry.drmType = string(mBuffer.getInt(base + ChannelCatalogFormat.FIELD_DRM_TYPE * 4));
+            entry.drmKey = string(mBuffer.getInt(base + ChannelCatalogFormat.FIELD_DRM_KEY * 4));
+            entry.attributes = bytes(mBuffer.getInt(base + ChannelCatalogFormat.FIELD_ATTRIBUTES * 4));
+            listener.onEntry(entry);
+        }
+    }
+
+    private String string(int index) {
+        if (index == ChannelCatalogFormat.NO_STRING) {
+            return null;
+        }
+        String value = mStrings[index];
+        if (value == null) {
+            value = new String(bytes(index), StandardCharsets.UTF_8);
+            mStrings[index] = value;
+        }
+        return value;
+    }
+
+    // Copia los bytes UTF-8 del string sin decodificarlo; cada llamada devuelve un arreglo nuevo
+    private byte[] bytes(int index) {
+        if (index == ChannelCatalogFormat.NO_STRING) {
+            return null;
+        }
+        int start = mBuffer.getInt(mOffsetsStart + index * 4);
+        int end = mBuffer.getInt(mOffsetsStart + (index + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = mBuffer.get(mBlobStart + start + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acumula las entradas de una lista M3U y las escribe en el formato de
+ * {@link ChannelCatalogFormat}. Se usa desde la tarea de Gradle que compila los assets.
+ */
+public final class ChannelCatalogWriter implements M3uTokenizer.Listener {
+
+    // Tabla de valores deduplicados (strings ya codificados en UTF-8 y atributos tal cual) y su índice
+    private final Map<ByteBuffer, Integer> mValueIndex = new HashMap<>();
+    private final List<byte[]> mValues = new ArrayList<>();
+
+    // Registros de ancho fijo, RECORD_FIELDS enteros por canal
+    private int[] mRecords = new int[ChannelCatalogFormat.RECORD_FIELDS * 256];
+    private int mRecordCount;
+
+    @Override
+    public void onEntry(M3uEntry entry) {
+        int base = mRecordCount * ChannelCatalogFormat.RECORD_FIELDS;
+        if (base + ChannelCatalogFormat.RECORD_FIELDS > mRecords.length) {
+            int[] bigger = new int[mRecords.length * 2];
+            System.arraycopy(mRecords, 0, bigger, 0, base);
+            mRecords = bigger;
+        }
+
+        mRecords[base + ChannelCatalogFormat.FIELD_ID] = intern(entry.getChannelId());
+        mRecords[base + ChannelCatalogFormat.FIELD_NAME] = intern(entry.getName());
+        mRecords[base + ChannelCatalogFormat.FIELD_LOGO] = intern(entry.getLogo());
+        mRecords[base + ChannelCatalogFormat.FIELD_GROUP] = intern(entry.getGroup());
+        mRecords[base + ChannelCatalogFormat.FIELD_URL] = intern(entry.getUrl());
+        mRecords[base + ChannelCatalogFormat.FIELD_DRM_TYPE] = intern(entry.getDrmType());
+        mRecords[base + ChannelCatalogFormat.FIELD_DRM_KEY] = intern(entry.getDrmKey());
+        // Los atributos son bytes codificados por M3uAttributes, no texto: se guardan sin convertir
+        mRecords[base + ChannelCatalogFormat.FIELD_ATTRIBUTES] = intern(entry.getAttributes());
+        mRecordCount++;
+    }
+
+    public int getRecordCount() {
+        return mRecordCount;
+    }
+
+    /**
+     * Escribe el catálogo completo. El stream no se cierra.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        // La tabla de valores va en un único blob
+        int blobLength = 0;
+        for (byte[] value : mValues) {
+            blobLength += value.length;
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(ChannelCatalogFormat.MAGIC);
+        data.writeInt(ChannelCatalogFormat.VERSION);
+        data.writeInt(mRecordCount);
+        data.writeInt(mValues.size());
+        data.writeInt(blobLength);
+
+        int offset = 0;
+        for (byte[] bytes : mValues) {
+            data.writeInt(offset);
+            offset += bytes.length;
+        }
+        data.writeInt(offset);
+        for (byte[] bytes : mValues) {
+            data.write(bytes);
+        }
+        for (int pad = (4 - blobLength % 4) % 4; pad > 0; pad--) {
+            data.writeByte(0);
+        }
+
+        int fields = mRecordCount * ChannelCatalogFormat.RECORD_FIELDS;
+        for (int i = 0; i < fields; i++) {
+            data.writeInt(mRecords[i]);
+        }
+
+        data.flush();
+    }
+
+    // Devuelve el índice del string (en UTF-8) en la tabla, agregándolo si es nuevo
+    private int intern(String value) {
+        return value == null ? ChannelCatalogFormat.NO_STRING : intern(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Devuelve el índice del valor en la tabla, agregándolo si es nuevo
+    private int intern(byte[] value) {
+        if (value == null) {
+            return ChannelCatalogFormat.NO_STRING;
+        }
+        ByteBuffer key = ByteBuffer.wrap(value);
+        Integer index = mValueIndex.get(key);
+        if (index == null) {
+            index = mValues.size();
+            mValues.add(value);
+            mValueIndex.put(key, index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,110 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diferencias entre dos versiones de una lista de canales, identificando cada canal por
+ * su tvg-id más su URL de stream. Con esto una actualización solo toca los canales
+ * agregados, eliminados o modificados en lugar de reconstruir todo el catálogo.
+ *
+ * Si la misma identidad aparece varias veces (por ejemplo, un canal repetido en dos grupos),
+ * cada aparición se empareja por orden: la primera con la primera, etc.
+ */
+public final class ChannelDiff {
+
+    /**
+     * Cómo identificar y comparar los elementos de la lista.
+     */
+    public interface Keys<T> {
+        // Identidad estable del canal (tvg-id + URL)
+        String identity(T item);
+
+        // true si el resto de los datos visibles (nombre, grupo, logo...) no cambió
+        boolean sameContent(T oldItem, T newItem);
+    }
+
+    // Para cada índice de la lista nueva, su índice en la lista vieja o -1 si es nuevo
+    private final int[] mOldIndexOfNew;
+
+    private final List<Integer> mAdded = new ArrayList<>();    // Índices en la lista nueva
+    private final List<Integer> mRemoved = new ArrayList<>();  // Índices en la lista vieja
+    private final List<Integer> mChanged = new ArrayList<>();  // Índices en la lista nueva
+
+    private ChannelDiff(int newSize) {
+        mOldIndexOfNew = new int[newSize];
+    }
+
+    /**
+     * Calcula las diferencias en tiempo lineal usando un mapa de identidades.
+     */
+    public static <T> ChannelDiff compute(List<T> oldItems, List<T> newItems, Keys<T> keys) {
+        ChannelDiff diff = new ChannelDiff(newItems.size());
+
+        Map<String, Integer> oldIndex = new HashMap<>(oldItems.size() * 2);
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i < oldItems.size(); i++) {
+            oldIndex.put(occurrenceKey(keys.identity(oldItems.get(i)), occurrences), i);
+        }
+
+        boolean[] matched = new boolean[oldItems.size()];
+        occurrences.clear();
+        for (int i = 0; i < newItems.size(); i++) {
+            T item = newItems.get(i);
+            Integer old = oldIndex.get(occurrenceKey(keys.identity(item), occurrences));
+            if (old == null) {
+                diff.mOldIndexOfNew[i] = -1;
+                diff.mAdded.add(i);
+            } else {
+                diff.mOldIndexOfNew[i] = old;
+                matched[old] = true;
+                if (!keys.sameContent(oldItems.get(old), item)) {
+                    diff.mChanged.add(i);
+                }
+            }
+        }
+
+        for (int i = 0; i < matched.length; i++) {
+            if (!matched[i]) {
+                diff.mRemoved.add(i);
+            }
+        }
+        return diff;
+    }
+
+    // Agrega el número de aparición a la identidad para distinguir duplicados
+    private static String occurrenceKey(String identity, Map<String, Integer> occurrences) {
+        Integer seen = occurrences.get(identity);
+        int count = seen == null ? 0 : seen;
+        occurrences.put(identity, count + 1);
+        return count == 0 ? identity : identity + '#' + count;
+    }
+
+    public boolean isEmpty() {
+        return mAdded.isEmpty() && mRemoved.isEmpty() && mChanged.isEmpty();
+    }
+
+    /**
+     * Índice en la lista vieja del elemento {@code newIndex} de la lista nueva, o -1 si es nuevo.
+     */
+    public int oldIndexOf(int newIndex) {
+        return mOldIndexOfNew[newIndex];
+    }
+
+    // Índices (en la lista nueva) de los canales agregados
+    public List<Integer> getAdded() {
+        return mAdded;
+    }
+
+    // Índices (en la lista vieja) de los canales eliminados
+    public List<Integer> getRemoved() {
+        return mRemoved;
+    }
+
+    // Índices (en la lista nueva) de los canales cuyo contenido cambió
+    public List<Integer> getChanged() {
+        return mChanged;
+    }
+}
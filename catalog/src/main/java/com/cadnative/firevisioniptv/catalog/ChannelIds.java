@@ -0,0 +1,50 @@
+package com.cadnative.firevisioniptv.catalog;
+
+/**
+ * Ids de canal estables: un hash de 64 bits del tvg-id y la URL del stream.
+ * El mismo canal recibe el mismo id en cada carga de la lista y en cada proceso, así que
+ * el id se puede pasar en un Intent y volver a encontrar el canal después de reiniciar la app.
+ */
+public final class ChannelIds {
+
+    // Id reservado para "sin canal" (por ejemplo, un extra que falta en el Intent)
+    public static final long NO_ID = 0;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ChannelIds() {
+    }
+
+    /**
+     * Hash FNV-1a de tvg-id + '\n' + URL. Nunca devuelve {@link #NO_ID}.
+     */
+    public static long of(String channelId, String url) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, channelId);
+        hash = (hash ^ '\n') * FNV_PRIME;
+        hash = mix(hash, url);
+        return hash == NO_ID ? 1 : hash;
+    }
+
+    /**
+     * Id para la aparición número {@code occurrence} (desde 1) de un canal repetido,
+     * derivado del id de la primera aparición.
+     */
+    public static long duplicate(long id, int occurrence) {
+        long hash = (id ^ occurrence) * FNV_PRIME;
+        hash ^= hash >>> 29;
+        return hash == NO_ID ? 1 : hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,282 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo de canales en columnas (un arreglo por campo en lugar de un objeto por canal).
+ *
+ * Cada campo de texto es una referencia a un {@link StringPool} compartido, así que los valores
+ * repetidos (logos, tipos de DRM, hosts) se guardan una sola vez. El grupo es un ordinal en la
+ * lista de grupos, y las URLs del stream y del logo se guardan partidas en "esquema://host" más
+ * el resto, de modo que el prefijo del servidor se comparte entre todos sus canales.
+ *
+ * Se llena desde un solo hilo con {@link #add}; las filas ya publicadas (entregadas con un
+ * Handler u otro mecanismo con happens-before) se pueden leer desde cualquier hilo.
+ */
+public final class ChannelTable {
+
+    /**
+     * Arreglos de todas las columnas. Al crecer se copian y se reemplazan juntos.
+     */
+    private static final class Columns {
+        final long[] key;           // Id estable del canal (ver ChannelIds)
+        final int[] id;
+        final int[] name;
+        final int[] logoHost;
+        final int[] logoPath;
+        final int[] group;
+        final int[] urlHost;
+        final int[] urlPath;
+        final int[] drmType;
+        final int[] drmKey;
+        final byte[][] attributes;
+        final int[][] alternates;   // Pares host/resto por cada URL alternativa; null si no hay
+
+        Columns(int capacity) {
+            key = new long[capacity];
+            id = new int[capacity];
+            name = new int[capacity];
+            logoHost = new int[capacity];
+            logoPath = new int[capacity];
+            group = new int[capacity];
+            urlHost = new int[capacity];
+            urlPath = new int[capacity];
+            drmType = new int[capacity];
+            drmKey = new int[capacity];
+            attributes = new byte[capacity][];
+            alternates = new int[capacity][];
+        }
+
+        Columns(Columns old, int capacity) {
+            key = Arrays.copyOf(old.key, capacity);
+            id = Arrays.copyOf(old.id, capacity);
+            name = Arrays.copyOf(old.name, capacity);
+            logoHost = Arrays.copyOf(old.logoHost, capacity);
+            logoPath = Arrays.copyOf(old.logoPath, capacity);
+            group = Arrays.copyOf(old.group, capacity);
+            urlHost = Arrays.copyOf(old.urlHost, capacity);
+            urlPath = Arrays.copyOf(old.urlPath, capacity);
+            drmType = Arrays.copyOf(old.drmType, capacity);
+            drmKey = Arrays.copyOf(old.drmKey, capacity);
+            attributes = Arrays.copyOf(old.attributes, capacity);
+            alternates = Arrays.copyOf(old.alternates, capacity);
+        }
+
+        int capacity() {
+            return id.length;
+        }
+    }
+
+    private final StringPool mStrings = new StringPool();
+    private volatile Columns mColumns = new Columns(256);
+    private volatile int mSize;
+
+    // Nombres de grupo por ordinal; son pocos, así que se guardan como String
+    private volatile String[] mGroupNames = new String[16];
+    private int mGroupCount;
+    private final Map<String, Integer> mGroupOrdinals = new HashMap<>();
+
+    // Categorías de cada canal (group-title separado por ';'), ver getCategories
+    private final CategoryIndex mCategories = new CategoryIndex();
+
+    // Veces que apareció cada id base, para dar ids distintos a los canales repetidos
+    private final LongIntIndex mIdOccurrences = new LongIntIndex(256);
+
+    /**
+     * Agrega un canal al final de la tabla.
+     * @return índice de la fila
+     */
+    public int add(String channelId, String name, String logo, String group, String url,
+                   String drmType, String drmKey, byte[] attributes, List<String> alternateUrls) {
+        int row = mSize;
+        Columns columns = mColumns;
+        if (row == columns.capacity()) {
+            columns = new Columns(columns, columns.capacity() * 2);
+        }
+
+        columns.key[row] = stableId(channelId, url);
+        columns.id[row] = mStrings.intern(channelId);
+        columns.name[row] = mStrings.intern(name);
+        int split = hostEnd(logo);
+        columns.logoHost[row] = split > 0 ? mStrings.intern(logo.substring(0, split)) : StringPool.NONE;
+        columns.logoPath[row] = mStrings.intern(split > 0 ? logo.substring(split) : logo);
+        columns.group[row] = groupOrdinal(group);
+        split = hostEnd(url);
+        columns.urlHost[row] = split > 0 ? mStrings.intern(url.substring(0, split)) : StringPool.NONE;
+        columns.urlPath[row] = mStrings.intern(split > 0 ? url.substring(split) : url);
+        columns.drmType[row] = mStrings.intern(drmType);
+        columns.drmKey[row] = mStrings.intern(drmKey);
+        columns.attributes[row] = attributes;
+        if (alternateUrls != null && !alternateUrls.isEmpty()) {
+            int[] refs = new int[alternateUrls.size() * 2];
+            for (int i = 0; i < alternateUrls.size(); i++) {
+                String alternate = alternateUrls.get(i);
+                split = hostEnd(alternate);
+                refs[i * 2] = split > 0 ? mStrings.intern(alternate.substring(0, split)) : StringPool.NONE;
+                refs[i * 2 + 1] = mStrings.intern(split > 0 ? alternate.substring(split) : alternate);
+            }
+            columns.alternates[row] = refs;
+        }
+        mCategories.add(row, group);
+
+        mColumns = columns;
+        mSize = row + 1;
+        return row;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Id estable de la fila: el mismo canal en la misma posición relativa entre sus repetidos
+     * recibe el mismo id en cada carga (ver {@link ChannelIds}).
+     */
+    public long getId(int row) {
+        return mColumns.key[row];
+    }
+
+    public String getChannelId(int row) {
+        return mStrings.get(mColumns.id[row]);
+    }
+
+    public String getName(int row) {
+        return mStrings.get(mColumns.name[row]);
+    }
+
+    public String getLogo(int row) {
+        Columns columns = mColumns;
+        return join(columns.logoHost[row], columns.logoPath[row]);
+    }
+
+    // Ordinal del grupo (ver getGroupName), o StringPool.NONE si el canal no tiene grupo
+    public int getGroupOrdinal(int row) {
+        return mColumns.group[row];
+    }
+
+    public String getGroup(int row) {
+        int ordinal = mColumns.group[row];
+        return ordinal == StringPool.NONE ? null : mGroupNames[ordinal];
+    }
+
+    public String getGroupName(int ordinal) {
+        return mGroupNames[ordinal];
+    }
+
+    public int getGroupCount() {
+        return mGroupCount;
+    }
+
+    // Índice de categorías y sus filas; se completa a medida que se agregan canales
+    public CategoryIndex getCategories() {
+        return mCategories;
+    }
+
+    public String getUrl(int row) {
+        Columns columns = mColumns;
+        return join(columns.urlHost[row], columns.urlPath[row]);
+    }
+
+    public String getDrmType(int row) {
+        return mStrings.get(mColumns.drmType[row]);
+    }
+
+    public String getDrmKey(int row) {
+        return mStrings.get(mColumns.drmKey[row]);
+    }
+
+    // Atributos extendidos sin decodificar (ver M3uAttributes), o null
+    public byte[] getAttributes(int row) {
+        return mColumns.attributes[row];
+    }
+
+    public List<String> getAlternateUrls(int row) {
+        int[] refs = mColumns.alternates[row];
+        if (refs == null) {
+            return Collections.emptyList();
+        }
+        List<String> urls = new ArrayList<>(refs.length / 2);
+        for (int i = 0; i < refs.length; i += 2) {
+            urls.add(join(refs[i], refs[i + 1]));
+        }
+        return urls;
+    }
+
+    // Pool de strings de la tabla; solo para tests
+    StringPool getStrings() {
+        return mStrings;
+    }
+
+    /**
+     * Memoria aproximada de la tabla en bytes: columnas, pool de strings y atributos.
+     */
+    public long sizeInBytes() {
+        Columns columns = mColumns;
+        long bytes = 8L * columns.capacity() + 9L * 4 * columns.capacity() + 2L * 4 * columns.capacity() + mStrings.sizeInBytes();
+        for (int row = 0; row < mSize; row++) {
+            if (columns.attributes[row] != null) {
+                bytes += 16 + columns.attributes[row].length;
+            }
+            if (columns.alternates[row] != null) {
+                bytes += 16 + 4L * columns.alternates[row].length;
+            }
+        }
+        return bytes;
+    }
+
+    private long stableId(String channelId, String url) {
+        long id = ChannelIds.of(channelId, url);
+        int seen = mIdOccurrences.get(id);
+        if (seen == LongIntIndex.MISSING) {
+            mIdOccurrences.put(id, 1);
+            return id;
+        }
+        mIdOccurrences.put(id, seen + 1);
+        return ChannelIds.duplicate(id, seen);
+    }
+
+    private int groupOrdinal(String group) {
+        if (group == null) {
+            return StringPool.NONE;
+        }
+        Integer ordinal = mGroupOrdinals.get(group);
+        if (ordinal == null) {
+            String[] names = mGroupNames;
+            if (mGroupCount == names.length) {
+                names = Arrays.copyOf(names, names.length * 2);
+            }
+            names[mGroupCount] = group;
+            mGroupNames = names;
+            ordinal = mGroupCount++;
+            mGroupOrdinals.put(group, ordinal);
+        }
+        return ordinal;
+    }
+
+    private String join(int host, int path) {
+        if (host == StringPool.NONE) {
+            return mStrings.get(path);
+        }
+        return mStrings.get(host) + mStrings.get(path);
+    }
+
+    /**
+     * Fin de "esquema://host[:puerto]" dentro de la URL, o -1 si no tiene esa forma.
+     */
+    static int hostEnd(String url) {
+        if (url == null) {
+            return -1;
+        }
+        int scheme = url.indexOf("://");
+        if (scheme <= 0) {
+            return -1;
+        }
+        int slash = url.indexOf('/', scheme + 3);
+        return slash > 0 ? slash : -1;
+    }
+}
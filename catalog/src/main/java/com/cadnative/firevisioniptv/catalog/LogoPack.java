@@ -0,0 +1,315 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Paquete local de logos ya reducidos al tamaño de tarjeta, para mostrar el browse sin red.
+ * Los logos se agregan siempre al final de un único archivo (logos.pack) y un índice aparte
+ * (logos.idx) guarda dónde está cada uno, por la clave de su URL ({@link #keyOf}); así los canales
+ * que comparten logo comparten también la entrada.
+ *
+ * El índice está en orden de uso. Los logos olvidados o reemplazados siguen ocupando el archivo
+ * hasta la siguiente compactación, así que el límite se aplica al archivo entero: cuando un logo
+ * nuevo no entra, se olvidan los usados hace más tiempo hasta bajar a COMPACT_TO_PERCENT del
+ * máximo y se compacta (el margen evita compactar en cada logo). {@link #flush} también compacta
+ * si los bytes olvidados ocupan más que los vigentes. Cada compactación cambia la generación, que se guarda
+ * en los dos archivos: si no coinciden (por ejemplo, se cortó la app entre los dos renombres)
+ * el paquete se descarta entero en lugar de leer bytes equivocados.
+ *
+ * Todos los enteros son big-endian:
+ * <pre>
+ * logos.pack: MAGIC, VERSION, generation (long), datos de los logos
+ * logos.idx:  MAGIC, VERSION, generation (long), count, count × (key (long), offset (long), length)
+ * </pre>
+ * Todos los métodos hacen acceso a disco y se pueden llamar desde cualquier hilo.
+ */
+public final class LogoPack implements Closeable {
+
+    public static final int MAGIC = 0x46564c50; // "FVLP"
+    public static final int VERSION = 1;
+
+    static final String PACK_NAME = "logos.pack";
+    static final String INDEX_NAME = "logos.idx";
+
+    // MAGIC, VERSION y generación
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+
+    // Porcentaje del máximo que ocupan los logos vigentes después de compactar por falta de lugar
+    private static final int COMPACT_TO_PERCENT = 75;
+
+    /**
+     * Ubicación de un logo dentro del archivo.
+     */
+    private static final class Entry {
+        final long offset;
+        final int length;
+
+        Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+
+    // En orden de acceso: el primero es el usado hace más tiempo
+    private final LinkedHashMap<Long, Entry> mEntries = new LinkedHashMap<>(256, 0.75f, true);
+    private RandomAccessFile mPack;
+    private long mGeneration;
+    private long mLiveBytes;
+    // El índice en disco no tiene los logos actuales (put o logos olvidados)
+    private boolean mDirty;
+    // Solo cambió el orden de uso: se guarda con el próximo cambio o al cerrar, no en cada lectura
+    private boolean mReordered;
+
+    private LogoPack(File directory, long maxBytes) {
+        this.mDirectory = directory;
+        this.mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Abre el paquete del directorio, creándolo si no existe o si está dañado.
+     * @param maxBytes tamaño máximo de los logos en el archivo, contando los olvidados que esperan la compactación
+     */
+    public static LogoPack open(File directory, long maxBytes) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        LogoPack pack = new LogoPack(directory, maxBytes);
+        if (!pack.load()) {
+            pack.reset();
+        }
+        return pack;
+    }
+
+    /**
+     * Clave de un logo por su URL (el mismo hash que los ids de canal).
+     */
+    public static long keyOf(String url) {
+        return ChannelIds.of(null, url);
+    }
+
+    public synchronized boolean contains(long key) {
+        // containsKey no cambia el orden de uso; solo get lo hace
+        return mEntries.containsKey(key);
+    }
+
+    /**
+     * Bytes del logo, o null si no está. Lo marca como usado recién.
+     */
+    public synchronized byte[] get(long key) throws IOException {
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        byte[] data = new byte[entry.length];
+        mPack.seek(entry.offset);
+        mPack.readFully(data);
+        mReordered = true;
+        return data;
+    }
+
+    /**
+     * Agrega un logo al final del paquete, reemplazando el anterior con la misma clave.
+     * Si no entra, antes olvida los menos usados y compacta el archivo; un logo más grande
+     * que el máximo no se guarda. El índice en disco recién se actualiza con {@link #flush}.
+     */
+    public synchronized void put(long key, byte[] data) throws IOException {
+        if (data.length > mMaxBytes) {
+            return;
+        }
+        Entry previous = mEntries.remove(key);
+        if (previous != null) {
+            mLiveBytes -= previous.length;
+        }
+        mDirty = true;
+
+        if (mPack.length() - HEADER_BYTES + data.length > mMaxBytes) {
+            long target = mMaxBytes * COMPACT_TO_PERCENT / 100 - data.length;
+            Iterator<Map.Entry<Long, Entry>> eldest = mEntries.entrySet().iterator();
+            while (mLiveBytes > target && eldest.hasNext()) {
+                mLiveBytes -= eldest.next().getValue().length;
+                eldest.remove();
+            }
+            compact();
+        }
+
+        long offset = mPack.length();
+        mPack.seek(offset);
+        mPack.write(data);
+        mEntries.put(key, new Entry(offset, data.length));
+        mLiveBytes += data.length;
+        mDirty = true;
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    // Bytes de los logos vigentes (sin contar los olvidados que esperan la compactación)
+    public synchronized long sizeInBytes() {
+        return mLiveBytes;
+    }
+
+    /**
+     * Guarda el índice si cambiaron los logos (con el orden de uso actual), compactando antes
+     * el archivo si los logos olvidados ocupan más que los vigentes. Las lecturas solas no
+     * reescriben el índice.
+     */
+    public synchronized void flush() throws IOException {
+        long deadBytes = mPack.length() - HEADER_BYTES - mLiveBytes;
+        if (deadBytes > mLiveBytes) {
+            compact();
+        } else if (mDirty) {
+            writeIndex();
+        }
+    }
+
+    // Guarda también el orden de uso, aunque no se haya agregado ningún logo
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            mDirty |= mReordered;
+            flush();
+        } finally {
+            mPack.close();
+        }
+    }
+
+    // Lee el índice y abre el paquete; false si falta algo o no coinciden
+    private boolean load() throws IOException {
+        File packFile = new File(mDirectory, PACK_NAME);
+        File indexFile = new File(mDirectory, INDEX_NAME);
+        if (!packFile.isFile() || !indexFile.isFile()) {
+            return false;
+        }
+        RandomAccessFile pack = new RandomAccessFile(packFile, "rw");
+        try (DataInputStream index = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            long packLength = pack.length();
+            if (packLength < HEADER_BYTES || pack.readInt() != MAGIC || pack.readInt() != VERSION
+                    || index.readInt() != MAGIC || index.readInt() != VERSION) {
+                pack.close();
+                return false;
+            }
+            long generation = pack.readLong();
+            if (index.readLong() != generation) {
+                pack.close();
+                return false;
+            }
+            int count = index.readInt();
+            for (int i = 0; i < count; i++) {
+                long key = index.readLong();
+                long offset = index.readLong();
+                int length = index.readInt();
+                if (offset < HEADER_BYTES || length < 0 || offset + length > packLength) {
+                    pack.close();
+                    mEntries.clear();
+                    return false;
+                }
+                mEntries.put(key, new Entry(offset, length));
+                mLiveBytes += length;
+            }
+            mPack = pack;
+            mGeneration = generation;
+            return true;
+        } catch (IOException e) {
+            // Índice cortado o ilegible: se empieza de nuevo
+            pack.close();
+            mEntries.clear();
+            mLiveBytes = 0;
+            return false;
+        }
+    }
+
+    // Deja un paquete vacío de una generación nueva
+    private void reset() throws IOException {
+        mEntries.clear();
+        mLiveBytes = 0;
+        mGeneration = System.currentTimeMillis();
+        File packFile = new File(mDirectory, PACK_NAME);
+        if (packFile.exists() && !packFile.delete()) {
+            throw new IOException("Cannot delete " + packFile);
+        }
+        mPack = new RandomAccessFile(packFile, "rw");
+        writeHeader(mPack, mGeneration);
+        writeIndex();
+    }
+
+    // Copia los logos vigentes, en orden de uso, a un archivo nuevo que reemplaza al actual
+    private void compact() throws IOException {
+        long generation = mGeneration + 1;
+        File packFile = new File(mDirectory, PACK_NAME);
+        File compacted = new File(mDirectory, PACK_NAME + ".tmp");
+        LinkedHashMap<Long, Entry> moved = new LinkedHashMap<>(mEntries.size() * 2, 0.75f, true);
+        try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+            out.setLength(0);
+            writeHeader(out, generation);
+            byte[] buffer = new byte[0];
+            for (Map.Entry<Long, Entry> item : mEntries.entrySet()) {
+                Entry entry = item.getValue();
+                if (buffer.length < entry.length) {
+                    buffer = new byte[entry.length];
+                }
+                mPack.seek(entry.offset);
+                mPack.readFully(buffer, 0, entry.length);
+                moved.put(item.getKey(), new Entry(out.getFilePointer(), entry.length));
+                out.write(buffer, 0, entry.length);
+            }
+        }
+        mPack.close();
+        boolean replaced = compacted.renameTo(packFile);
+        // Se vuelve a abrir el paquete en los dos casos: si no se pudo reemplazar, el anterior
+        // sigue valiendo con el índice y las entradas actuales
+        mPack = new RandomAccessFile(packFile, "rw");
+        if (!replaced) {
+            compacted.delete();
+            throw new IOException("Cannot replace " + packFile);
+        }
+        mGeneration = generation;
+        mEntries.clear();
+        mEntries.putAll(moved);
+        writeIndex();
+    }
+
+    // Escribe el índice en un archivo temporal y lo renombra, así nunca queda a medias
+    private void writeIndex() throws IOException {
+        File indexFile = new File(mDirectory, INDEX_NAME);
+        File temporary = new File(mDirectory, INDEX_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(mGeneration);
+            out.writeInt(mEntries.size());
+            for (Map.Entry<Long, Entry> item : mEntries.entrySet()) {
+                out.writeLong(item.getKey());
+                out.writeLong(item.getValue().offset);
+                out.writeInt(item.getValue().length);
+            }
+        }
+        if (!temporary.renameTo(indexFile)) {
+            throw new IOException("Cannot replace " + indexFile);
+        }
+        mDirty = false;
+        mReordered = false;
+    }
+
+    private static void writeHeader(RandomAccessFile file, long generation) throws IOException {
+        file.seek(0);
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.writeLong(generation);
+    }
+}
@@ -0,0 +1,81 @@
+package com.cadnative.firevisioniptv.catalog;
+
+/**
+ * Mapa de long a int con direccionamiento abierto, sin objetos por entrada.
+ * Se usa para buscar la posición de un canal por su id en O(1).
+ */
+public final class LongIntIndex {
+
+    // Valor devuelto por get cuando la clave no está
+    public static final int MISSING = -1;
+
+    private long[] mKeys;
+    private int[] mValues;
+    private boolean[] mUsed;
+    private int mSize;
+
+    public LongIntIndex(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        mUsed = new boolean[capacity];
+    }
+
+    /**
+     * Guarda el valor de la clave, reemplazando el anterior si ya existía.
+     */
+    public void put(long key, int value) {
+        if ((mSize + 1) * 2 > mKeys.length) {
+            grow();
+        }
+        int slot = find(key);
+        if (!mUsed[slot]) {
+            mUsed[slot] = true;
+            mKeys[slot] = key;
+            mSize++;
+        }
+        mValues[slot] = value;
+    }
+
+    public int get(long key) {
+        int slot = find(key);
+        return mUsed[slot] ? mValues[slot] : MISSING;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    // Posición de la clave, o la posición libre donde iría
+    private int find(long key) {
+        int mask = mKeys.length - 1;
+        int slot = spread(key) & mask;
+        while (mUsed[slot] && mKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] keys = mKeys;
+        int[] values = mValues;
+        boolean[] used = mUsed;
+        mKeys = new long[keys.length * 2];
+        mValues = new int[keys.length * 2];
+        mUsed = new boolean[keys.length * 2];
+        mSize = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                put(keys[i], values[i]);
+            }
+        }
+    }
+
+    private static int spread(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
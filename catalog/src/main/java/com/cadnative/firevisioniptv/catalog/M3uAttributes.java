@@ -0,0 +1,86 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Atributos extendidos de una entrada M3U, guardados como bytes sin decodificar.
+ *
+ * El tokenizador conserva todo lo que no tiene campo propio en {@link M3uEntry}: los atributos
+ * del #EXTINF (tvg-chno, catchup, catchup-days, user-agent...) y las líneas #EXTVLCOPT y
+ * #KODIPROP. Cada uno ocupa una línea "clave=valor" terminada en '\n', sin comillas ni prefijo.
+ * Un valor solo se convierte a String cuando alguien lo pide.
+ */
+public final class M3uAttributes {
+
+    // Atributos del #EXTINF
+    public static final String TVG_CHNO = "tvg-chno";
+    public static final String CATCHUP = "catchup";
+    public static final String CATCHUP_DAYS = "catchup-days";
+    public static final String CATCHUP_SOURCE = "catchup-source";
+
+    // Opciones de VLC (#EXTVLCOPT) con las cabeceras HTTP del stream
+    public static final String HTTP_USER_AGENT = "http-user-agent";
+    public static final String HTTP_REFERRER = "http-referrer";
+
+    // Variantes que algunas listas usan como atributo del #EXTINF
+    private static final String[] USER_AGENT_KEYS = {HTTP_USER_AGENT, "user-agent"};
+    private static final String[] REFERRER_KEYS = {HTTP_REFERRER, "http-referer", "referrer", "referer"};
+
+    private M3uAttributes() {
+    }
+
+    /**
+     * Valor del primer atributo con esa clave (sin distinguir mayúsculas), o null si no está.
+     * @param raw bytes de {@link M3uEntry#getAttributes()}; puede ser null
+     */
+    public static String get(byte[] raw, String key) {
+        if (raw == null) {
+            return null;
+        }
+        byte[] wanted = key.getBytes(StandardCharsets.US_ASCII);
+        int lineStart = 0;
+        while (lineStart < raw.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < raw.length && raw[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int keyEnd = lineStart + wanted.length;
+            if (keyEnd < lineEnd && raw[keyEnd] == '=' && keyMatches(raw, lineStart, wanted)) {
+                return new String(raw, keyEnd + 1, lineEnd - keyEnd - 1, StandardCharsets.UTF_8);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Cabeceras HTTP que pide la lista para este stream (User-Agent, Referer); vacío si ninguna.
+     */
+    public static Map<String, String> httpHeaders(byte[] raw) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        putFirst(headers, "User-Agent", raw, USER_AGENT_KEYS);
+        putFirst(headers, "Referer", raw, REFERRER_KEYS);
+        return headers;
+    }
+
+    private static void putFirst(Map<String, String> headers, String header, byte[] raw, String[] keys) {
+        for (String key : keys) {
+            String value = get(raw, key);
+            if (value != null && !value.isEmpty()) {
+                headers.put(header, value);
+                return;
+            }
+        }
+    }
+
+    private static boolean keyMatches(byte[] raw, int start, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (Character.toLowerCase(raw[start + i]) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package com.cadnative.firevisioniptv.catalog;
+
+/**
+ * Entrada de una lista M3U tal como la entrega {@link M3uTokenizer}.
+ * El tokenizador reutiliza una única instancia para todas las entradas, así que
+ * quien la reciba debe copiar los valores que necesite antes de volver del callback.
+ */
+public final class M3uEntry {
+
+    String channelId;   // Atributo tvg-id
+    String name;        // Nombre visible (texto después de la coma del #EXTINF)
+    String logo;        // Atributo tvg-logo
+    String group;       // Atributo group-title
+    String url;         // URL del stream
+    String drmType;     // #KODIPROP:inputstream.adaptive.license_type
+    String drmKey;      // #KODIPROP:inputstream.adaptive.license_key
+    byte[] attributes;  // Resto de atributos sin decodificar, ver M3uAttributes
+
+    M3uEntry() {
+    }
+
+    /**
+     * Limpia todos los campos antes de comenzar una nueva entrada #EXTINF.
+     */
+    void reset() {
+        channelId = null;
+        name = null;
+        logo = null;
+        group = null;
+        url = null;
+        drmType = null;
+        drmKey = null;
+        attributes = null;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    /**
+     * Nunca es null: si la línea no trae nombre se usa tvg-name, y si tampoco existe, "".
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getLogo() {
+        return logo;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getDrmType() {
+        return drmType;
+    }
+
+    public String getDrmKey() {
+        return drmKey;
+    }
+
+    /**
+     * Atributos extendidos sin decodificar (formato de {@link M3uAttributes}), o null si no hay.
+     * El arreglo es propio de esta entrada; se puede conservar sin copiarlo.
+     */
+    public byte[] getAttributes() {
+        return attributes;
+    }
+}
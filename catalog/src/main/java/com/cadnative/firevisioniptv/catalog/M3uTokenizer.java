@@ -0,0 +1,374 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tokenizador M3U de una sola pasada que trabaja directamente sobre los bytes de cada línea.
+ *
+ * A diferencia del antiguo encadenamiento de replace/split, no crea Strings ni arreglos
+ * intermedios: recorre el #EXTINF carácter a carácter, respeta los valores entre comillas
+ * (por ejemplo group-title="Animation;Kids" o nombres con espacios) y solo decodifica
+ * a UTF-8 los campos que se conservan en {@link M3uEntry}. Los demás atributos y las líneas
+ * #EXTVLCOPT / #KODIPROP se guardan como bytes en {@link M3uEntry#getAttributes()}.
+ * Esas líneas pertenecen a la entrada que termina en la próxima URL, estén antes o después
+ * de su #EXTINF.
+ */
+public final class M3uTokenizer {
+
+    /**
+     * Recibe cada entrada completa (#EXTINF + URL). La instancia de {@link M3uEntry}
+     * se reutiliza, por lo que no debe guardarse fuera del callback.
+     */
+    public interface Listener {
+        void onEntry(M3uEntry entry);
+    }
+
+    // Tamaño inicial del buffer de lectura para streams
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Etiquetas reconocidas (ASCII), comparadas byte a byte sin crear Strings
+    private static final byte[] EXT_INF = ascii("#EXTINF:");
+    private static final byte[] KOD_IP_DROP_TYPE = ascii("#KODIPROP:inputstream.adaptive.license_type=");
+    private static final byte[] KOD_IP_DROP_KEY = ascii("#KODIPROP:inputstream.adaptive.license_key=");
+    private static final byte[] KOD_IP_DROP = ascii("#KODIPROP:");
+    private static final byte[] EXT_VLC_OPT = ascii("#EXTVLCOPT:");
+    private static final byte[] HTTP = ascii("http://");
+    private static final byte[] HTTPS = ascii("https://");
+
+    // Atributos del #EXTINF que se conservan
+    private static final byte[] TVG_ID = ascii("tvg-id");
+    private static final byte[] TVG_NAME = ascii("tvg-name");
+    private static final byte[] TVG_LOGO = ascii("tvg-logo");
+    private static final byte[] GROUP_TITLE = ascii("group-title");
+
+    private final Listener mListener;
+
+    // Entrada reutilizada para todas las líneas
+    private final M3uEntry mEntry = new M3uEntry();
+
+    // true mientras haya un #EXTINF esperando su URL
+    private boolean mPending;
+
+    // Buffer auxiliar para decodificar desde buffers directos (por ejemplo, archivos mapeados)
+    private byte[] mScratch;
+
+    // Atributos extendidos de la entrada en curso, en el formato de M3uAttributes
+    private byte[] mAttributes = new byte[256];
+    private int mAttributesLength;
+
+    public M3uTokenizer(Listener listener) {
+        this.mListener = listener;
+    }
+
+    /**
+     * Lee el stream completo en bloques y procesa cada línea sin convertirla a String.
+     * El stream no se cierra; eso queda a cargo de quien lo abrió.
+     */
+    public void parse(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        int filled = 0;   // Bytes válidos en el buffer
+        int scan = 0;     // Primer byte aún no revisado en busca de '\n'
+        int read;
+
+        while ((read = in.read(buffer, filled, buffer.length - filled)) != -1) {
+            filled += read;
+            int lineStart = 0;
+            for (; scan < filled; scan++) {
+                if (buffer[scan] == '\n') {
+                    parseLine(view, lineStart, scan);
+                    lineStart = scan + 1;
+                }
+            }
+
+            // Movemos la línea incompleta al inicio del buffer
+            if (lineStart > 0) {
+                filled -= lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, filled);
+                scan = filled;
+            }
+            // Si una sola línea ocupa todo el buffer, lo agrandamos
+            if (filled == buffer.length) {
+                byte[] bigger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, bigger, 0, filled);
+                buffer = bigger;
+                view = ByteBuffer.wrap(buffer);
+            }
+        }
+
+        // Última línea sin salto de línea final
+        if (filled > 0) {
+            parseLine(view, 0, filled);
+        }
+    }
+
+    /**
+     * Procesa todas las líneas de {@code buf} entre {@code start} (inclusive) y {@code end} (exclusivo).
+     * Sirve tanto para buffers en heap como para buffers directos.
+     */
+    public void parse(ByteBuffer buf, int start, int end) {
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == '\n') {
+                parseLine(buf, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            parseLine(buf, lineStart, end);
+        }
+    }
+
+    /**
+     * Procesa una línea sin el '\n' final.
+     */
+    void parseLine(ByteBuffer buf, int start, int end) {
+        start = skipBom(buf, start, end);
+        start = skipSpaces(buf, start, end);
+        end = trimEnd(buf, start, end);
+        if (start >= end) {
+            return;
+        }
+
+        if (startsWith(buf, start, end, EXT_INF)) {
+            // Un #EXTINF anterior que quedó sin URL se descarta; las opciones leídas desde la
+            // última URL (#KODIPROP antes del #EXTINF, como escribe Kodi) son de esta entrada
+            if (mPending) {
+                clearEntry();
+            }
+            parseExtInf(buf, start + EXT_INF.length, end);
+            mPending = true;
+            return;
+        }
+
+        // Opciones de la entrada en curso (o de la próxima) y su URL; las demás líneas
+        // (#EXTM3U, comentarios, etc.) se ignoran
+        if (startsWith(buf, start, end, KOD_IP_DROP_TYPE)) {
+            mEntry.drmType = decodeTrimmed(buf, start + KOD_IP_DROP_TYPE.length, end);
+        } else if (startsWith(buf, start, end, KOD_IP_DROP_KEY)) {
+            mEntry.drmKey = decodeTrimmed(buf, start + KOD_IP_DROP_KEY.length, end);
+        } else if (startsWith(buf, start, end, EXT_VLC_OPT)) {
+            appendAttribute(buf, start + EXT_VLC_OPT.length, end);
+        } else if (startsWith(buf, start, end, KOD_IP_DROP)) {
+            appendAttribute(buf, start + KOD_IP_DROP.length, end);
+        } else if (isUrl(buf, start, end)) {
+            // Una URL sin #EXTINF no es un canal; sus opciones se descartan con ella
+            if (mPending) {
+                mEntry.url = decode(buf, start, end);
+                if (mAttributesLength > 0) {
+                    mEntry.attributes = Arrays.copyOf(mAttributes, mAttributesLength);
+                }
+                mPending = false;
+                mListener.onEntry(mEntry);
+            }
+            clearEntry();
+        }
+    }
+
+    /**
+     * true si la línea entre {@code start} y {@code end} es la URL de una entrada. Después de
+     * una línea así el tokenizador queda igual que al comenzar, por eso ParallelM3uParser
+     * corta los trozos justo detrás de ellas.
+     */
+    static boolean isUrlLine(ByteBuffer buf, int start, int end) {
+        start = skipBom(buf, start, end);
+        start = skipSpaces(buf, start, end);
+        return isUrl(buf, start, trimEnd(buf, start, end));
+    }
+
+    private static boolean isUrl(ByteBuffer buf, int start, int end) {
+        return startsWith(buf, start, end, HTTP) || startsWith(buf, start, end, HTTPS);
+    }
+
+    // Deja la entrada vacía para la siguiente
+    private void clearEntry() {
+        mEntry.reset();
+        mAttributesLength = 0;
+    }
+
+    /**
+     * Recorre los atributos clave="valor" del #EXTINF y el nombre que sigue a la primera
+     * coma que no esté entre comillas.
+     */
+    private void parseExtInf(ByteBuffer buf, int p, int end) {
+        // Duración (-1, 0, ...): todo hasta el primer espacio o coma
+        while (p < end && !isSpace(buf.get(p)) && buf.get(p) != ',') {
+            p++;
+        }
+
+        int tvgNameStart = -1;
+        int tvgNameEnd = -1;
+        boolean hasName = false;
+
+        while (p < end) {
+            byte b = buf.get(p);
+            if (isSpace(b)) {
+                p++;
+                continue;
+            }
+            if (b == ',') {
+                p++;
+                hasName = true;
+                break;
+            }
+
+            // Clave del atributo
+            int keyStart = p;
+            while (p < end && (b = buf.get(p)) != '=' && b != ',' && !isSpace(b)) {
+                p++;
+            }
+            int keyEnd = p;
+            if (p >= end || buf.get(p) != '=') {
+                continue; // Atributo sin valor
+            }
+            p++;
+
+            // Valor, con o sin comillas
+            int valueStart;
+            int valueEnd;
+            if (p < end && buf.get(p) == '"') {
+                valueStart = ++p;
+                while (p < end && buf.get(p) != '"') {
+                    p++;
+                }
+                valueEnd = p;
+                if (p < end) {
+                    p++; // Comilla de cierre
+                }
+            } else {
+                valueStart = p;
+                while (p < end && (b = buf.get(p)) != ',' && !isSpace(b)) {
+                    p++;
+                }
+                valueEnd = p;
+            }
+
+            if (keyEquals(buf, keyStart, keyEnd, TVG_ID)) {
+                mEntry.channelId = decode(buf, valueStart, valueEnd);
+            } else if (keyEquals(buf, keyStart, keyEnd, TVG_LOGO)) {
+                mEntry.logo = decode(buf, valueStart, valueEnd);
+            } else if (keyEquals(buf, keyStart, keyEnd, GROUP_TITLE)) {
+                mEntry.group = decode(buf, valueStart, valueEnd);
+            } else if (keyEquals(buf, keyStart, keyEnd, TVG_NAME)) {
+                // Solo se decodifica si la línea no trae nombre después de la coma
+                tvgNameStart = valueStart;
+                tvgNameEnd = valueEnd;
+            } else {
+                // Cualquier otro atributo se guarda tal cual, sin decodificar
+                appendAttribute(buf, keyStart, keyEnd, valueStart, valueEnd);
+            }
+        }
+
+        String name = hasName ? decodeTrimmed(buf, p, end) : null;
+        if (name == null && tvgNameStart >= 0) {
+            name = decode(buf, tvgNameStart, tvgNameEnd);
+        }
+        mEntry.name = name != null ? name : "";
+    }
+
+    /**
+     * Guarda una línea "clave=valor" de #EXTVLCOPT o #KODIPROP como atributo extendido.
+     */
+    private void appendAttribute(ByteBuffer buf, int start, int end) {
+        end = trimEnd(buf, start, end);
+        int equals = start;
+        while (equals < end && buf.get(equals) != '=') {
+            equals++;
+        }
+        if (equals > start && equals < end) {
+            appendAttribute(buf, start, equals, equals + 1, end);
+        }
+    }
+
+    // Agrega "clave=valor\n" copiando los bytes del buffer
+    private void appendAttribute(ByteBuffer buf, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        int needed = mAttributesLength + (keyEnd - keyStart) + (valueEnd - valueStart) + 2;
+        if (needed > mAttributes.length) {
+            mAttributes = Arrays.copyOf(mAttributes, Math.max(needed, mAttributes.length * 2));
+        }
+        for (int i = keyStart; i < keyEnd; i++) {
+            mAttributes[mAttributesLength++] = buf.get(i);
+        }
+        mAttributes[mAttributesLength++] = '=';
+        for (int i = valueStart; i < valueEnd; i++) {
+            mAttributes[mAttributesLength++] = buf.get(i);
+        }
+        mAttributes[mAttributesLength++] = '\n';
+    }
+
+    /**
+     * Decodifica el rango como UTF-8. Devuelve null si el rango está vacío.
+     */
+    private String decode(ByteBuffer buf, int start, int end) {
+        int length = end - start;
+        if (length <= 0) {
+            return null;
+        }
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        if (mScratch == null || mScratch.length < length) {
+            mScratch = new byte[Math.max(length, 256)];
+        }
+        for (int i = 0; i < length; i++) {
+            mScratch[i] = buf.get(start + i);
+        }
+        return new String(mScratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private String decodeTrimmed(ByteBuffer buf, int start, int end) {
+        start = skipSpaces(buf, start, end);
+        return decode(buf, start, trimEnd(buf, start, end));
+    }
+
+    private static boolean startsWith(ByteBuffer buf, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean keyEquals(ByteBuffer buf, int start, int end, byte[] key) {
+        return end - start == key.length && startsWith(buf, start, end, key);
+    }
+
+    // Saltamos el BOM UTF-8 si el archivo lo trae
+    private static int skipBom(ByteBuffer buf, int start, int end) {
+        if (end - start >= 3 && buf.get(start) == (byte) 0xEF
+                && buf.get(start + 1) == (byte) 0xBB && buf.get(start + 2) == (byte) 0xBF) {
+            return start + 3;
+        }
+        return start;
+    }
+
+    private static int skipSpaces(ByteBuffer buf, int start, int end) {
+        while (start < end && isSpace(buf.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(ByteBuffer buf, int start, int end) {
+        while (end > start && isSpace(buf.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,193 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * URLs de imágenes que fallaron hace poco, para no volver a pedirlas en cada tarjeta.
+ * Cada falla bloquea la URL por un tiempo que se duplica con cada falla seguida
+ * (de {@code baseTtlMillis} hasta {@code maxTtlMillis}); una carga exitosa la desbloquea.
+ * Las URLs se guardan por su hash ({@link #keyOf}) en arreglos paralelos, así consultar
+ * una URL al vincular una tarjeta no crea objetos.
+ *
+ * Todos los enteros son big-endian:
+ * <pre>
+ * MAGIC, VERSION, count, count × (key (long), failures, retryAt (long))
+ * </pre>
+ * Los métodos se pueden llamar desde cualquier hilo; los de archivo hacen acceso a disco.
+ */
+public final class NegativeUrlCache {
+
+    public static final int MAGIC = 0x46564e43; // "FVNC"
+    public static final int VERSION = 1;
+
+    private final long mBaseTtlMillis;
+    private final long mMaxTtlMillis;
+
+    // Posición de cada clave en los arreglos
+    private LongIntIndex mSlots = new LongIntIndex(64);
+    private long[] mKeys = new long[64];
+    private int[] mFailures = new int[64];
+    private long[] mRetryAt = new long[64];
+    private int mSize;
+    private boolean mDirty;
+
+    public NegativeUrlCache(long baseTtlMillis, long maxTtlMillis) {
+        this.mBaseTtlMillis = baseTtlMillis;
+        this.mMaxTtlMillis = maxTtlMillis;
+    }
+
+    /**
+     * Clave de una URL (el mismo hash que los ids de canal y el paquete de logos).
+     */
+    public static long keyOf(String url) {
+        return ChannelIds.of(null, url);
+    }
+
+    /**
+     * true si la URL falló y todavía no pasó su tiempo de espera.
+     */
+    public synchronized boolean isBlocked(long key, long now) {
+        int slot = mSlots.get(key);
+        return slot != LongIntIndex.MISSING && mFailures[slot] > 0 && now < mRetryAt[slot];
+    }
+
+    /**
+     * Registra una falla y bloquea la URL: la espera base la primera vez, el doble en cada falla seguida.
+     * @return momento hasta el que queda bloqueada
+     */
+    public synchronized long recordFailure(long key, long now) {
+        int slot = slot(key);
+        int failures = mFailures[slot] + 1;
+        long ttl = mBaseTtlMillis;
+        for (int i = 1; i < failures && ttl < mMaxTtlMillis; i++) {
+            ttl *= 2;
+        }
+        mFailures[slot] = failures;
+        mRetryAt[slot] = now + Math.min(ttl, mMaxTtlMillis);
+        mDirty = true;
+        return mRetryAt[slot];
+    }
+
+    /**
+     * La URL cargó bien: se olvidan sus fallas.
+     */
+    public synchronized void recordSuccess(long key) {
+        int slot = mSlots.get(key);
+        if (slot != LongIntIndex.MISSING && mFailures[slot] > 0) {
+            mFailures[slot] = 0;
+            mRetryAt[slot] = 0;
+            mDirty = true;
+        }
+    }
+
+    // URLs bloqueadas o con fallas recordadas
+    public synchronized int size() {
+        int size = 0;
+        for (int i = 0; i < mSize; i++) {
+            if (mFailures[i] > 0) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public synchronized boolean isDirty() {
+        return mDirty;
+    }
+
+    /**
+     * Lee las fallas guardadas y las combina con las actuales, que pueden haberse registrado
+     * mientras se abría el archivo: una URL con fallas en los dos lados queda con la mayor
+     * cantidad de fallas y la espera más larga, y una que cargó bien desde entonces sigue
+     * desbloqueada. Si el archivo no existe no hace nada.
+     */
+    public synchronized void readFrom(File file) throws IOException {
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a negative URL cache: " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long key = in.readLong();
+                int failures = in.readInt();
+                long retryAt = in.readLong();
+                int slot = mSlots.get(key);
+                if (slot == LongIntIndex.MISSING) {
+                    slot = slot(key);
+                    mFailures[slot] = failures;
+                    mRetryAt[slot] = retryAt;
+                } else if (mFailures[slot] > 0) {
+                    mFailures[slot] = Math.max(mFailures[slot], failures);
+                    mRetryAt[slot] = Math.max(mRetryAt[slot], retryAt);
+                }
+            }
+            // Sigue pendiente de guardar solo lo que se registró antes de leer
+        }
+    }
+
+    /**
+     * Guarda las fallas en un archivo temporal que después reemplaza a {@code file}.
+     * Se descartan las URLs desbloqueadas y las que cumplieron su espera hace más de
+     * {@code maxTtlMillis}: si vuelven a fallar, empiezan de nuevo con la espera base.
+     */
+    public synchronized void writeTo(File file, long now) throws IOException {
+        int count = 0;
+        for (int i = 0; i < mSize; i++) {
+            if (isKept(i, now)) {
+                count++;
+            }
+        }
+        File temporary = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            for (int i = 0; i < mSize; i++) {
+                if (isKept(i, now)) {
+                    out.writeLong(mKeys[i]);
+                    out.writeInt(mFailures[i]);
+                    out.writeLong(mRetryAt[i]);
+                }
+            }
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+        mDirty = false;
+    }
+
+    private boolean isKept(int slot, long now) {
+        return mFailures[slot] > 0 && now < mRetryAt[slot] + mMaxTtlMillis;
+    }
+
+    // Posición de la clave, agregándola sin fallas si no estaba
+    private int slot(long key) {
+        int slot = mSlots.get(key);
+        if (slot != LongIntIndex.MISSING) {
+            return slot;
+        }
+        if (mSize == mKeys.length) {
+            int capacity = mKeys.length * 2;
+            mKeys = Arrays.copyOf(mKeys, capacity);
+            mFailures = Arrays.copyOf(mFailures, capacity);
+            mRetryAt = Arrays.copyOf(mRetryAt, capacity);
+        }
+        slot = mSize++;
+        mKeys[slot] = key;
+        mFailures[slot] = 0;
+        mRetryAt[slot] = 0;
+        mSlots.put(key, slot);
+        return slot;
+    }
+}
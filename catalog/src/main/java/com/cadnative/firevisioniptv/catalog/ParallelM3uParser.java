@@ -0,0 +1,164 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parsea una lista M3U en paralelo: el buffer se divide en trozos que siempre comienzan
+ * en la línea siguiente a la URL de una entrada, cada trozo se procesa con su propio
+ * {@link M3uTokenizer} dentro de un ForkJoinPool y los resultados se entregan respetando
+ * el orden original de la lista, a medida que terminan.
+ *
+ * @param <T> tipo al que se convierte cada entrada (por ejemplo, Channel)
+ */
+public final class ParallelM3uParser<T> {
+
+    /**
+     * Convierte la entrada (reutilizada por el tokenizador) en un objeto propio.
+     * Se llama desde varios hilos a la vez, por lo que no debe compartir estado mutable.
+     */
+    public interface EntryMapper<T> {
+        T map(M3uEntry entry);
+    }
+
+    /**
+     * Recibe las entradas de cada trozo, en el orden de la lista y en el hilo que llamó a parse.
+     */
+    public interface ChunkListener<T> {
+        void onChunk(List<T> entries);
+    }
+
+    // Tamaño de cada trozo: por debajo de esto el costo de coordinar supera la ganancia
+    public static final int MIN_CHUNK_BYTES = 256 * 1024;
+
+    // Trozos en curso por hilo del pool: los que se adelantan al que se está entregando
+    // esperan en memoria, así que la ventana acota el heap sin importar el tamaño de la lista
+    private static final int CHUNKS_AHEAD_PER_THREAD = 2;
+
+    private final ForkJoinPool mPool;
+    private final EntryMapper<T> mMapper;
+    private final int mChunkBytes;
+
+    public ParallelM3uParser(ForkJoinPool pool, EntryMapper<T> mapper) {
+        this(pool, mapper, MIN_CHUNK_BYTES);
+    }
+
+    // Con trozos más chicos, para probar los cortes con listas cortas
+    ParallelM3uParser(ForkJoinPool pool, EntryMapper<T> mapper, int chunkBytes) {
+        this.mPool = pool;
+        this.mMapper = mapper;
+        this.mChunkBytes = chunkBytes;
+    }
+
+    /**
+     * Parsea las líneas entre {@code start} y {@code end} y entrega las entradas de cada trozo
+     * en orden, apenas terminan él y los anteriores; el primer lote llega sin esperar al resto.
+     * El buffer solo se lee con accesos absolutos, así que puede compartirse entre hilos.
+     */
+    public void parse(ByteBuffer buf, int start, int end, ChunkListener<T> listener) {
+        List<int[]> chunks = split(buf, start, end);
+        if (chunks.size() == 1 || mPool.getParallelism() <= 1) {
+            listener.onChunk(new ChunkTask(buf, start, end).compute());
+            return;
+        }
+
+        int window = mPool.getParallelism() * CHUNKS_AHEAD_PER_THREAD;
+        Iterator<int[]> pending = chunks.iterator();
+        ArrayDeque<ChunkTask> running = new ArrayDeque<>(window);
+        try {
+            while (running.size() < window && pending.hasNext()) {
+                running.add(submit(buf, pending.next()));
+            }
+            while (!running.isEmpty()) {
+                List<T> entries = running.poll().join();
+                if (pending.hasNext()) {
+                    running.add(submit(buf, pending.next()));
+                }
+                listener.onChunk(entries);
+            }
+        } finally {
+            // Si el listener o un trozo fallan, los que siguen en curso ya no se esperan
+            for (ChunkTask task : running) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private ChunkTask submit(ByteBuffer buf, int[] chunk) {
+        ChunkTask task = new ChunkTask(buf, chunk[0], chunk[1]);
+        mPool.execute(task);
+        return task;
+    }
+
+    /**
+     * Divide el rango en trozos de unos mChunkBytes cuyos límites caen justo después de la URL
+     * de una entrada. Ahí el tokenizador no tiene nada pendiente, así que ninguna entrada (ni los
+     * #KODIPROP que preceden a su #EXTINF) queda partida entre dos trozos.
+     */
+    List<int[]> split(ByteBuffer buf, int start, int end) {
+        List<int[]> chunks = new ArrayList<>();
+        int chunkStart = start;
+        while (end - chunkStart > mChunkBytes) {
+            int boundary = nextChunkStart(buf, chunkStart, chunkStart + mChunkBytes, end);
+            if (boundary >= end) {
+                break;
+            }
+            chunks.add(new int[]{chunkStart, boundary});
+            chunkStart = boundary;
+        }
+        chunks.add(new int[]{chunkStart, end});
+        return chunks;
+    }
+
+    // Comienzo de la primera línea que sigue a una URL a partir de la línea que contiene "from",
+    // o "end" si no hay
+    private static int nextChunkStart(ByteBuffer buf, int start, int from, int end) {
+        int lineStart = from;
+        while (lineStart > start && buf.get(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+        for (int i = lineStart; i < end; i++) {
+            if (buf.get(i) == '\n') {
+                if (M3uTokenizer.isUrlLine(buf, lineStart, i)) {
+                    return i + 1;
+                }
+                lineStart = i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Parsea un trozo con un tokenizador propio.
+     */
+    private final class ChunkTask extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer mBuffer;
+        private final int mStart;
+        private final int mEnd;
+
+        ChunkTask(ByteBuffer buffer, int start, int end) {
+            this.mBuffer = buffer;
+            this.mStart = start;
+            this.mEnd = end;
+        }
+
+        @Override
+        protected List<T> compute() {
+            final List<T> result = new ArrayList<>();
+            new M3uTokenizer(new M3uTokenizer.Listener() {
+                @Override
+                public void onEntry(M3uEntry entry) {
+                    result.add(mMapper.map(entry));
+                }
+            }).parse(mBuffer, mStart, mEnd);
+            return result;
+        }
+    }
+}
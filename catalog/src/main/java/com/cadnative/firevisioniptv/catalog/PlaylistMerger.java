@@ -0,0 +1,143 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Une varias listas de canales en una sola, eliminando duplicados.
+ *
+ * Dos entradas son el mismo canal si comparten la URL del stream, o si tienen el mismo
+ * tvg-id normalizado y el mismo nombre normalizado (algunas listas repiten un tvg-id
+ * genérico como "0000" para canales distintos, por eso el id solo no alcanza). Las entradas
+ * sin tvg-id se comparan solo por nombre. Cada duplicado se entrega a {@link Channels#merge}
+ * para que su URL quede como fuente alternativa del canal que ya existe.
+ *
+ * @param <T> tipo de canal
+ */
+public final class PlaylistMerger<T> {
+
+    /**
+     * Acceso a los datos de un canal y forma de combinar un duplicado con el original.
+     */
+    public interface Channels<T> {
+        String channelId(T channel);
+
+        String name(T channel);
+
+        String url(T channel);
+
+        // Incorpora el duplicado (URL alternativa, grupos, logo...) al canal ya existente
+        void merge(T primary, T duplicate);
+    }
+
+    private final Channels<T> mChannels;
+    private final Map<String, T> mByUrl = new HashMap<>();
+    private final Map<String, T> mByIdentity = new HashMap<>();
+    private final List<T> mMerged = new ArrayList<>();
+    private int mDuplicates;
+
+    public PlaylistMerger(Channels<T> channels) {
+        this.mChannels = channels;
+    }
+
+    /**
+     * Agrega todos los canales de una lista, en orden.
+     */
+    public void addAll(List<T> channels) {
+        for (T channel : channels) {
+            add(channel);
+        }
+    }
+
+    /**
+     * Agrega un canal.
+     * @return true si es un canal nuevo; false si se combinó con uno existente
+     */
+    public boolean add(T channel) {
+        String url = normalizeUrl(mChannels.url(channel));
+        String identity = identity(channel);
+
+        T primary = url != null ? mByUrl.get(url) : null;
+        if (primary == null && identity != null) {
+            primary = mByIdentity.get(identity);
+        }
+
+        if (primary != null) {
+            mChannels.merge(primary, channel);
+            mDuplicates++;
+        } else {
+            primary = channel;
+            mMerged.add(channel);
+        }
+
+        // Las claves del duplicado también apuntan al canal original
+        if (url != null && !mByUrl.containsKey(url)) {
+            mByUrl.put(url, primary);
+        }
+        if (identity != null && !mByIdentity.containsKey(identity)) {
+            mByIdentity.put(identity, primary);
+        }
+        return primary == channel;
+    }
+
+    // Canales resultantes, en el orden de su primera aparición
+    public List<T> getChannels() {
+        return mMerged;
+    }
+
+    // Cantidad de entradas que se combinaron con un canal existente
+    public int getDuplicateCount() {
+        return mDuplicates;
+    }
+
+    // tvg-id + nombre normalizados, o solo el nombre si no hay tvg-id
+    private String identity(T channel) {
+        String name = normalizeName(mChannels.name(channel));
+        if (name == null) {
+            return null;
+        }
+        String id = normalizeId(mChannels.channelId(channel));
+        return id != null ? id + '|' + name : '|' + name;
+    }
+
+    static String normalizeId(String id) {
+        if (id == null) {
+            return null;
+        }
+        id = id.trim().toLowerCase(Locale.ROOT);
+        return id.isEmpty() ? null : id;
+    }
+
+    /**
+     * Nombre en minúsculas, sin acentos y solo con letras y dígitos: "DW Español " -> "dwespanol".
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.length() == 0 ? null : normalized.toString();
+    }
+
+    static String normalizeUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        url = url.trim();
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        return url.isEmpty() ? null : url;
+    }
+}
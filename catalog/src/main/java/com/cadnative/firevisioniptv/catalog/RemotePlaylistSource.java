@@ -0,0 +1,189 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Lista M3U remota con copia local en disco. Cada actualización envía
+ * If-None-Match / If-Modified-Since con los valores de la última descarga, así un
+ * 304 no descarga nada, y acepta respuestas comprimidas con gzip.
+ */
+public final class RemotePlaylistSource {
+
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    // Claves del archivo de metadatos que acompaña a la copia local
+    private static final String META_URL = "url";
+    private static final String META_ETAG = "etag";
+    private static final String META_LAST_MODIFIED = "last-modified";
+
+    /**
+     * Resultado de {@link #fetch()}.
+     */
+    public static final class Result {
+        private final File file;
+        private final boolean modified;
+
+        Result(File file, boolean modified) {
+            this.file = file;
+            this.modified = modified;
+        }
+
+        // Copia local con el contenido vigente de la lista
+        public File getFile() {
+            return file;
+        }
+
+        // true si se descargó contenido nuevo; false si la copia local sigue vigente
+        public boolean isModified() {
+            return modified;
+        }
+    }
+
+    private final String mUrl;
+    private final File mPlaylistFile;
+    private final File mMetaFile;
+
+    /**
+     * @param url dirección de la lista M3U
+     * @param cacheDir carpeta donde se guardan la copia local y sus metadatos
+     */
+    public RemotePlaylistSource(String url, File cacheDir) {
+        this.mUrl = url;
+        String key = cacheKey(url);
+        this.mPlaylistFile = new File(cacheDir, key + ".m3u");
+        this.mMetaFile = new File(cacheDir, key + ".properties");
+    }
+
+    public String getUrl() {
+        return mUrl;
+    }
+
+    /**
+     * Pide la lista al servidor de forma condicional. Si la red falla pero hay copia local,
+     * se devuelve la copia como no modificada.
+     * @throws IOException si no se pudo descargar y tampoco hay copia local
+     */
+    public Result fetch() throws IOException {
+        Properties meta = readMeta();
+        boolean hasCopy = mPlaylistFile.isFile() && mUrl.equals(meta.getProperty(META_URL));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(mUrl).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            // Al pedir gzip explícitamente, la descompresión queda a nuestro cargo
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            if (hasCopy) {
+                String etag = meta.getProperty(META_ETAG);
+                String lastModified = meta.getProperty(META_LAST_MODIFIED);
+                if (etag != null) {
+                    connection.setRequestProperty("If-None-Match", etag);
+                }
+                if (lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", lastModified);
+                }
+            }
+
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && hasCopy) {
+                return new Result(mPlaylistFile, false);
+            }
+            if (code != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + code + " for " + mUrl);
+            }
+
+            download(connection);
+
+            meta.clear();
+            meta.setProperty(META_URL, mUrl);
+            putIfPresent(meta, META_ETAG, connection.getHeaderField("ETag"));
+            putIfPresent(meta, META_LAST_MODIFIED, connection.getHeaderField("Last-Modified"));
+            writeMeta(meta);
+            return new Result(mPlaylistFile, true);
+        } catch (IOException e) {
+            if (hasCopy) {
+                return new Result(mPlaylistFile, false);
+            }
+            throw e;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Descarga a un archivo temporal y lo renombra, para no dejar nunca una copia a medias
+    private void download(HttpURLConnection connection) throws IOException {
+        File parent = mPlaylistFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+
+        File temp = new File(mPlaylistFile.getPath() + ".tmp");
+        InputStream in = connection.getInputStream();
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            in = new GZIPInputStream(in);
+        }
+        try (InputStream body = in; OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        if (!temp.renameTo(mPlaylistFile)) {
+            temp.delete();
+            throw new IOException("Cannot replace " + mPlaylistFile);
+        }
+    }
+
+    private Properties readMeta() {
+        Properties meta = new Properties();
+        if (mMetaFile.isFile()) {
+            try (InputStream in = new FileInputStream(mMetaFile)) {
+                meta.load(in);
+            } catch (IOException e) {
+                // Metadatos ilegibles: se descarga la lista completa otra vez
+                meta.clear();
+            }
+        }
+        return meta;
+    }
+
+    private void writeMeta(Properties meta) throws IOException {
+        try (OutputStream out = new FileOutputStream(mMetaFile)) {
+            meta.store(out, null);
+        }
+    }
+
+    private static void putIfPresent(Properties meta, String key, String value) {
+        if (value != null) {
+            meta.setProperty(key, value);
+        }
+    }
+
+    // Nombre de archivo estable derivado de la URL
+    private static String cacheKey(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder("remote_");
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return "remote_" + Integer.toHexString(url.hashCode());
+        }
+    }
+}
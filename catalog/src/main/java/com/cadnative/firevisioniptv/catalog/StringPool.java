@@ -0,0 +1,139 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tabla de strings deduplicados guardados como UTF-8 en un único arreglo de bytes.
+ *
+ * Cada string ocupa sus bytes UTF-8 más un offset de 4 bytes, sin objetos por entrada.
+ * La deduplicación usa una tabla hash abierta de enteros que compara contra los bytes ya
+ * guardados, así que tampoco retiene Strings mientras se construye.
+ *
+ * Se escribe desde un solo hilo. Leer entradas ya publicadas (por ejemplo, entregadas con
+ * un Handler) es seguro desde cualquier hilo: los arreglos crecen copiándose y se publican
+ * en campos volatile, así que cualquier versión que vea el lector contiene esas entradas.
+ */
+public final class StringPool {
+
+    // Valor de una referencia sin string
+    public static final int NONE = -1;
+
+    private volatile byte[] mBytes = new byte[4096];
+    private volatile int[] mOffsets = new int[257];   // mOffsets[i]..mOffsets[i + 1] = bytes del string i
+    private int mCount;
+    private int mLength;
+
+    // Tabla hash de deduplicación: índice + 1 de cada string, 0 = libre. Solo la usa quien escribe
+    private int[] mSlots = new int[512];
+
+    /**
+     * Devuelve la referencia del string, agregándolo si todavía no está.
+     * @return NONE si {@code value} es null
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded);
+        int mask = mSlots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = mSlots[slot];
+            if (entry == 0) {
+                int index = append(encoded);
+                mSlots[slot] = index + 1;
+                if (mCount * 2 > mSlots.length) {
+                    rehash();
+                }
+                return index;
+            }
+            if (sameBytes(entry - 1, encoded)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Decodifica el string; cada llamada crea un String nuevo.
+     * @return null si {@code index} es NONE
+     */
+    public String get(int index) {
+        if (index == NONE) {
+            return null;
+        }
+        int[] offsets = mOffsets;
+        int start = offsets[index];
+        return new String(mBytes, start, offsets[index + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    // Cantidad de strings distintos
+    public int size() {
+        return mCount;
+    }
+
+    // Bytes ocupados por los arreglos (contenido, offsets y tabla hash)
+    public long sizeInBytes() {
+        return mBytes.length + 4L * mOffsets.length + 4L * mSlots.length;
+    }
+
+    private int append(byte[] encoded) {
+        byte[] bytes = mBytes;
+        if (mLength + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(mLength + encoded.length, bytes.length * 2));
+        }
+        System.arraycopy(encoded, 0, bytes, mLength, encoded.length);
+        mLength += encoded.length;
+        mBytes = bytes;
+
+        int[] offsets = mOffsets;
+        if (mCount + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[mCount + 1] = mLength;
+        mOffsets = offsets;
+        return mCount++;
+    }
+
+    private void rehash() {
+        int[] slots = new int[mSlots.length * 2];
+        int mask = slots.length - 1;
+        byte[] bytes = mBytes;
+        int[] offsets = mOffsets;
+        for (int index = 0; index < mCount; index++) {
+            int slot = hash(bytes, offsets[index], offsets[index + 1]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = index + 1;
+        }
+        mSlots = slots;
+    }
+
+    private boolean sameBytes(int index, byte[] encoded) {
+        int start = mOffsets[index];
+        if (mOffsets[index + 1] - start != encoded.length) {
+            return false;
+        }
+        byte[] bytes = mBytes;
+        for (int i = 0; i < encoded.length; i++) {
+            if (bytes[start + i] != encoded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] encoded) {
+        return hash(encoded, 0, encoded.length);
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        // Mezcla los bits altos para que la máscara no dependa solo de los últimos bytes
+        return hash ^ (hash >>> 16);
+    }
+}
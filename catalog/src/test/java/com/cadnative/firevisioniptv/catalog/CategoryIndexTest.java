@@ -0,0 +1,122 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CategoryIndexTest {
+
+    @Test
+    public void splitTrimsAndDropsEmptyAndRepeatedCategories() {
+        assertEquals(Arrays.asList("Animation", "Kids"), CategoryIndex.split(" Animation ;Kids;;Animation; "));
+        assertEquals(Collections.<String>emptyList(), CategoryIndex.split(" ; "));
+        assertEquals(Collections.<String>emptyList(), CategoryIndex.split(null));
+    }
+
+    @Test
+    public void rowsAreListedUnderEachOfTheirCategories() {
+        CategoryIndex index = new CategoryIndex();
+        index.add(0, "News");
+        index.add(1, "Kids;News");
+        index.add(2, null);
+        index.add(3, "Kids");
+
+        assertEquals(2, index.getCategoryCount());
+        assertEquals("News", index.getName(0));
+        assertEquals("Kids", index.getName(1));
+        assertArrayEquals(new int[] {0, 1}, index.getRows(0, 4));
+        assertArrayEquals(new int[] {1, 3}, index.getRows(1, 4));
+        assertArrayEquals(new int[] {2}, index.getUncategorizedRows(4));
+    }
+
+    @Test
+    public void rowLimitHidesRowsNotYetPublished() {
+        CategoryIndex index = new CategoryIndex();
+        for (int row = 0; row < 10; row++) {
+            index.add(row, "All");
+        }
+
+        assertArrayEquals(new int[] {0, 1, 2}, index.getRows(0, 3));
+        assertArrayEquals(new int[0], index.getRows(0, 0));
+    }
+
+    /**
+     * Contrato de concurrencia: un hilo escribe y otro lee lo ya publicado. El lector nunca ve una
+     * categoría sin nombre, ni filas desordenadas, repetidas o de otra categoría, aunque los
+     * arreglos crezcan mientras lee.
+     */
+    @Test
+    public void readerSeesConsistentPostingsWhileWriterAppends() throws InterruptedException {
+        final int rows = 200000;
+        final int categories = 300;
+        final CategoryIndex index = new CategoryIndex();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final int[] published = new int[1];
+        final Object lock = new Object();
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int limit;
+                    do {
+                        synchronized (lock) {
+                            limit = published[0];
+                        }
+                        checkIndex(index, limit, categories);
+                    } while (limit < rows);
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        reader.start();
+
+        for (int row = 0; row < rows; row++) {
+            // Las categorías nuevas aparecen a lo largo de toda la carga, así los arreglos crecen
+            index.add(row, row % 13 == 0 ? null : categoryOf(row, categories) + ";Todos");
+            if (row % 64 == 63 || row == rows - 1) {
+                synchronized (lock) {
+                    published[0] = row + 1;
+                }
+            }
+        }
+        reader.join();
+
+        assertNull(String.valueOf(failure.get()), failure.get());
+        checkIndex(index, rows, categories);
+        assertEquals(categories + 1, index.getCategoryCount());
+    }
+
+    // Categoría "C<n>" de la fila: n crece de a poco con la fila
+    private static String categoryOf(int row, int categories) {
+        return "C" + ((row / 7) % categories);
+    }
+
+    private static void checkIndex(CategoryIndex index, int limit, int categories) {
+        int count = index.getCategoryCount();
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            String name = index.getName(ordinal);
+            assertNotNull("name of ordinal " + ordinal, name);
+            int[] rows = index.getRows(ordinal, limit);
+            for (int i = 0; i < rows.length; i++) {
+                assertTrue(rows[i] < limit);
+                assertTrue("rows out of order", i == 0 || rows[i - 1] < rows[i]);
+                assertTrue("row " + rows[i] + " not in " + name,
+                        "Todos".equals(name) ? rows[i] % 13 != 0 : name.equals(categoryOf(rows[i], categories)));
+            }
+        }
+        int[] uncategorized = index.getUncategorizedRows(limit);
+        for (int row : uncategorized) {
+            assertEquals(0, row % 13);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ida y vuelta del catálogo binario: lo que escribe ChannelCatalogWriter (la tarea de Gradle)
+ * es lo que lee ChannelCatalogReader en la app, y un catálogo de otro formato se rechaza.
+ */
+public class ChannelCatalogTest {
+
+    private static final String PLAYLIST = "#EXTM3U\n"
+            + "#EXTINF:-1 tvg-id=\"a.tv\" tvg-logo=\"http://logo/a.png\" group-title=\"News\" tvg-chno=\"1\",Canal Ñ\n"
+            + "#EXTVLCOPT:http-user-agent=VLC\n"
+            + "http://example.com/a\n"
+            + "#KODIPROP:inputstream.adaptive.license_type=clearkey\n"
+            + "#KODIPROP:inputstream.adaptive.license_key=k:v\n"
+            + "#EXTINF:-1 group-title=\"News\",\n"
+            + "https://example.com/b.mpd\n"
+            + "#EXTINF:-1 tvg-id=\"c.tv\" group-title=\"Kids;News\",Canal C\n"
+            + "http://example.com/c\n";
+
+    @Test
+    public void readsBackWhatWasWritten() throws IOException {
+        byte[] playlist = PLAYLIST.getBytes(StandardCharsets.UTF_8);
+        ChannelCatalogWriter writer = new ChannelCatalogWriter();
+        new M3uTokenizer(writer).parse(ByteBuffer.wrap(playlist), 0, playlist.length);
+        byte[] catalog = write(writer);
+
+        List<String> expected = tokenize(playlist);
+        assertEquals(3, expected.size());
+        assertEquals(3, writer.getRecordCount());
+
+        ChannelCatalogReader reader = ChannelCatalogReader.open(ByteBuffer.wrap(catalog));
+        assertEquals(3, reader.getRecordCount());
+        assertEquals(expected, read(reader));
+    }
+
+    @Test
+    public void readsFromTheBufferPositionOfADirectBuffer() throws IOException {
+        byte[] catalog = compile(PLAYLIST);
+
+        // Como un catálogo mapeado dentro de un archivo más grande
+        ByteBuffer mapped = ByteBuffer.allocateDirect(catalog.length + 12);
+        mapped.position(12);
+        mapped.put(catalog);
+        mapped.position(12);
+
+        assertEquals(tokenize(PLAYLIST.getBytes(StandardCharsets.UTF_8)),
+                read(ChannelCatalogReader.open(mapped)));
+    }
+
+    @Test
+    public void attributesKeepTheirRawBytes() throws IOException {
+        // Referer en Latin-1: no es UTF-8 válido y no debe pasar por un String
+        byte[] head = "#EXTINF:-1,Canal\n#EXTVLCOPT:http-referrer=caf".getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = "\nhttp://example.com/x\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] playlist = Arrays.copyOf(head, head.length + 1 + tail.length);
+        playlist[head.length] = (byte) 0xE9;
+        System.arraycopy(tail, 0, playlist, head.length + 1, tail.length);
+
+        ChannelCatalogWriter writer = new ChannelCatalogWriter();
+        new M3uTokenizer(writer).parse(ByteBuffer.wrap(playlist), 0, playlist.length);
+        final List<byte[]> attributes = new ArrayList<>();
+        ChannelCatalogReader.open(ByteBuffer.wrap(write(writer))).read(new M3uTokenizer.Listener() {
+            @Override
+            public void onEntry(M3uEntry entry) {
+                attributes.add(entry.getAttributes());
+            }
+        });
+
+        byte[] expected = Arrays.copyOf("http-referrer=caf".getBytes(StandardCharsets.US_ASCII), 19);
+        expected[17] = (byte) 0xE9;
+        expected[18] = '\n';
+        assertArrayEquals(expected, attributes.get(0));
+    }
+
+    @Test
+    public void repeatedValuesAreStoredOnce() {
+        byte[] catalog = compile(PLAYLIST);
+
+        // "News" aparece en dos registros y se guarda una vez: 14 valores distintos
+        int stringCount = ByteBuffer.wrap(catalog).getInt(12);
+        assertEquals(14, stringCount);
+    }
+
+    @Test
+    public void rejectsAnotherMagic() {
+        byte[] catalog = compile(PLAYLIST);
+        ByteBuffer.wrap(catalog).putInt(0, 0x46564330);
+
+        assertRejected(catalog, "Not a channel catalog");
+    }
+
+    @Test
+    public void rejectsAnotherVersion() {
+        byte[] catalog = compile(PLAYLIST);
+        ByteBuffer.wrap(catalog).putInt(4, ChannelCatalogFormat.VERSION - 1);
+
+        assertRejected(catalog, "Unsupported channel catalog version " + (ChannelCatalogFormat.VERSION - 1));
+    }
+
+    @Test
+    public void rejectsTruncatedCatalogs() {
+        byte[] catalog = compile(PLAYLIST);
+
+        assertRejected(Arrays.copyOf(catalog, catalog.length - 4), "Truncated channel catalog");
+        assertRejected(new byte[8], "Not a channel catalog");
+    }
+
+    @Test
+    public void catalogNameReplacesTheExtension() {
+        assertEquals("playlist.fvc", ChannelCatalogFormat.catalogName("playlist.m3u"));
+        assertEquals("lista.fvc", ChannelCatalogFormat.catalogName("lista"));
+    }
+
+    private static void assertRejected(byte[] catalog, String message) {
+        try {
+            ChannelCatalogReader.open(ByteBuffer.wrap(catalog));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith(message));
+        }
+    }
+
+    private static byte[] compile(String playlist) {
+        byte[] bytes = playlist.getBytes(StandardCharsets.UTF_8);
+        ChannelCatalogWriter writer = new ChannelCatalogWriter();
+        new M3uTokenizer(writer).parse(ByteBuffer.wrap(bytes), 0, bytes.length);
+        try {
+            return write(writer);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static byte[] write(ChannelCatalogWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static List<String> tokenize(byte[] playlist) {
+        final List<String> entries = new ArrayList<>();
+        new M3uTokenizer(collector(entries)).parse(ByteBuffer.wrap(playlist), 0, playlist.length);
+        return entries;
+    }
+
+    private static List<String> read(ChannelCatalogReader reader) {
+        List<String> entries = new ArrayList<>();
+        reader.read(collector(entries));
+        return entries;
+    }
+
+    private static M3uTokenizer.Listener collector(final List<String> entries) {
+        return new M3uTokenizer.Listener() {
+            @Override
+            public void onEntry(M3uEntry entry) {
+                entries.add(entry.getChannelId() + '|' + entry.getName() + '|' + entry.getLogo() + '|'
+                        + entry.getGroup() + '|' + entry.getUrl() + '|' + entry.getDrmType() + '|'
+                        + entry.getDrmKey() + '|' + Arrays.toString(entry.getAttributes()));
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ChannelDiffTest {
+
+    // Canales de prueba como "tvg-id|url|nombre": la identidad son los dos primeros campos
+    private static final ChannelDiff.Keys<String> KEYS = new ChannelDiff.Keys<String>() {
+        @Override
+        public String identity(String item) {
+            return item.substring(0, item.lastIndexOf('|'));
+        }
+
+        @Override
+        public boolean sameContent(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    @Test
+    public void sameListIsEmpty() {
+        List<String> channels = Arrays.asList("a|http://a|A", "b|http://b|B");
+
+        ChannelDiff diff = ChannelDiff.compute(channels, channels, KEYS);
+
+        assertTrue(diff.isEmpty());
+        assertEquals(0, diff.oldIndexOf(0));
+        assertEquals(1, diff.oldIndexOf(1));
+    }
+
+    @Test
+    public void detectsAddedRemovedAndChanged() {
+        List<String> oldChannels = Arrays.asList("a|http://a|A", "b|http://b|B", "c|http://c|C");
+        List<String> newChannels = Arrays.asList("c|http://c|C", "a|http://a|A (HD)", "d|http://d|D");
+
+        ChannelDiff diff = ChannelDiff.compute(oldChannels, newChannels, KEYS);
+
+        assertFalse(diff.isEmpty());
+        assertEquals(Collections.singletonList(2), diff.getAdded());
+        assertEquals(Collections.singletonList(1), diff.getRemoved());
+        assertEquals(Collections.singletonList(1), diff.getChanged());
+        assertEquals(2, diff.oldIndexOf(0));
+        assertEquals(0, diff.oldIndexOf(1));
+        assertEquals(-1, diff.oldIndexOf(2));
+    }
+
+    @Test
+    public void sameIdWithAnotherUrlIsAnotherChannel() {
+        List<String> oldChannels = Collections.singletonList("a|http://a|A");
+        List<String> newChannels = Collections.singletonList("a|http://a2|A");
+
+        ChannelDiff diff = ChannelDiff.compute(oldChannels, newChannels, KEYS);
+
+        assertEquals(Collections.singletonList(0), diff.getAdded());
+        assertEquals(Collections.singletonList(0), diff.getRemoved());
+        assertTrue(diff.getChanged().isEmpty());
+    }
+
+    @Test
+    public void repeatedIdentitiesArePairedInOrder() {
+        List<String> oldChannels = Arrays.asList("a|http://a|News", "a|http://a|Sports");
+        List<String> newChannels = Arrays.asList("a|http://a|News", "a|http://a|Sports", "a|http://a|Kids");
+
+        ChannelDiff diff = ChannelDiff.compute(oldChannels, newChannels, KEYS);
+
+        assertEquals(0, diff.oldIndexOf(0));
+        assertEquals(1, diff.oldIndexOf(1));
+        assertEquals(Collections.singletonList(2), diff.getAdded());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getChanged().isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ChannelTableTest {
+
+    @Test
+    public void eachRowReadsBackWhatWasAdded() {
+        ChannelTable table = new ChannelTable();
+        byte[] attributes = "http-user-agent=VLC\n".getBytes(StandardCharsets.UTF_8);
+        int first = table.add("a.tv", "Canal A", "http://logo.example.com/a.png", "News",
+                "https://cdn.example.com/live/a.m3u8", "clearkey", "k:v", attributes,
+                Arrays.asList("https://backup.example.com/a.m3u8", "rtmp-sin-host"));
+        int second = table.add(null, "Canal B", null, null, "udp://@239.0.0.1:1234", null, null, null, null);
+
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(2, table.size());
+
+        assertEquals("a.tv", table.getChannelId(first));
+        assertEquals("Canal A", table.getName(first));
+        assertEquals("http://logo.example.com/a.png", table.getLogo(first));
+        assertEquals("News", table.getGroup(first));
+        assertEquals("https://cdn.example.com/live/a.m3u8", table.getUrl(first));
+        assertEquals("clearkey", table.getDrmType(first));
+        assertEquals("k:v", table.getDrmKey(first));
+        assertSame(attributes, table.getAttributes(first));
+        assertEquals(Arrays.asList("https://backup.example.com/a.m3u8", "rtmp-sin-host"),
+                table.getAlternateUrls(first));
+
+        assertNull(table.getChannelId(second));
+        assertEquals("Canal B", table.getName(second));
+        assertNull(table.getLogo(second));
+        assertNull(table.getGroup(second));
+        assertEquals(StringPool.NONE, table.getGroupOrdinal(second));
+        // Sin '/' después del host la URL se guarda entera
+        assertEquals("udp://@239.0.0.1:1234", table.getUrl(second));
+        assertNull(table.getDrmType(second));
+        assertNull(table.getAttributes(second));
+        assertEquals(Collections.<String>emptyList(), table.getAlternateUrls(second));
+    }
+
+    @Test
+    public void repeatedValuesArePooledOnce() {
+        ChannelTable table = new ChannelTable();
+        for (int i = 0; i < 100; i++) {
+            table.add(null, "Canal " + i, "http://logo.example.com/" + i + ".png", "News",
+                    "http://cdn.example.com/" + i, "widevine", null, null, null);
+        }
+
+        // 100 nombres, 100 rutas de logo y 100 rutas de URL, más los dos hosts y el tipo de DRM
+        assertEquals(303, table.getStrings().size());
+        assertEquals(1, table.getGroupCount());
+        assertEquals(table.getGroupOrdinal(0), table.getGroupOrdinal(99));
+        assertEquals("http://logo.example.com/99.png", table.getLogo(99));
+        assertEquals("http://cdn.example.com/99", table.getUrl(99));
+    }
+
+    @Test
+    public void growsPastItsInitialCapacity() {
+        // Más de las 256 filas y los 16 grupos iniciales
+        ChannelTable table = new ChannelTable();
+        int rows = 1000;
+        for (int i = 0; i < rows; i++) {
+            table.add("c" + i, "Canal " + i, null, "G" + (i % 40), "http://example.com/" + i,
+                    null, null, new byte[] {(byte) i}, i % 2 == 0 ? Collections.singletonList("http://alt/" + i) : null);
+        }
+
+        assertEquals(rows, table.size());
+        assertEquals(40, table.getGroupCount());
+        for (int i = 0; i < rows; i++) {
+            assertEquals("c" + i, table.getChannelId(i));
+            assertEquals("Canal " + i, table.getName(i));
+            assertEquals("G" + (i % 40), table.getGroup(i));
+            assertEquals("G" + (i % 40), table.getGroupName(table.getGroupOrdinal(i)));
+            assertEquals("http://example.com/" + i, table.getUrl(i));
+            assertArrayEquals(new byte[] {(byte) i}, table.getAttributes(i));
+            assertEquals(i % 2 == 0 ? 1 : 0, table.getAlternateUrls(i).size());
+        }
+    }
+
+    @Test
+    public void repeatedChannelsGetDistinctStableIds() {
+        ChannelTable first = new ChannelTable();
+        ChannelTable second = new ChannelTable();
+        for (ChannelTable table : new ChannelTable[] {first, second}) {
+            table.add("a.tv", "Canal A", null, null, "http://example.com/a", null, null, null, null);
+            table.add("a.tv", "Canal A", null, null, "http://example.com/a", null, null, null, null);
+        }
+
+        assertNotEquals(first.getId(0), first.getId(1));
+        assertEquals(first.getId(0), second.getId(0));
+        assertEquals(first.getId(1), second.getId(1));
+    }
+
+    @Test
+    public void hostEndSplitsAfterSchemeAndHost() {
+        assertEquals("http://example.com".length(), ChannelTable.hostEnd("http://example.com/a/b"));
+        assertEquals("https://example.com:8080".length(), ChannelTable.hostEnd("https://example.com:8080/"));
+        assertEquals(-1, ChannelTable.hostEnd("http://example.com"));
+        assertEquals(-1, ChannelTable.hostEnd("/sdcard/logo.png"));
+        assertEquals(-1, ChannelTable.hostEnd(null));
+        assertTrue(ChannelTable.hostEnd("file:///sdcard/a") > 0);
+    }
+}
@@ -0,0 +1,182 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class LogoPackTest {
+
+    // MAGIC, VERSION y generación al principio de los dos archivos
+    private static final int HEADER_BYTES = 16;
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void logosSurviveReopening() throws IOException {
+        File directory = mFolder.getRoot();
+        try (LogoPack pack = LogoPack.open(directory, 1000)) {
+            pack.put(1, logo(1, 100));
+            pack.put(2, logo(2, 50));
+        }
+
+        try (LogoPack pack = LogoPack.open(directory, 1000)) {
+            assertEquals(2, pack.size());
+            assertEquals(150, pack.sizeInBytes());
+            assertArrayEquals(logo(1, 100), pack.get(1));
+            assertArrayEquals(logo(2, 50), pack.get(2));
+            assertNull(pack.get(3));
+        }
+    }
+
+    @Test
+    public void fullPackForgetsLeastRecentlyUsedDownToThreeQuarters() throws IOException {
+        try (LogoPack pack = LogoPack.open(mFolder.getRoot(), 1000)) {
+            for (int key = 0; key < 10; key++) {
+                pack.put(key, logo(key, 100));
+            }
+            // El 0 pasa a ser el usado más recientemente
+            pack.get(0);
+
+            pack.put(10, logo(10, 100));
+
+            // Quedan 750 bytes o menos contando el logo nuevo: se olvidaron del 1 al 4
+            assertEquals(7, pack.size());
+            assertEquals(700, pack.sizeInBytes());
+            for (int key = 1; key <= 4; key++) {
+                assertFalse("key " + key, pack.contains(key));
+            }
+            for (int key : new int[] {0, 5, 6, 7, 8, 9, 10}) {
+                assertArrayEquals("key " + key, logo(key, 100), pack.get(key));
+            }
+            // Los olvidados ya no ocupan el archivo
+            assertEquals(HEADER_BYTES + 700, packFile().length());
+        }
+    }
+
+    @Test
+    public void logoLargerThanTheMaximumIsNotStored() throws IOException {
+        try (LogoPack pack = LogoPack.open(mFolder.getRoot(), 100)) {
+            pack.put(1, logo(1, 101));
+
+            assertEquals(0, pack.size());
+            assertEquals(HEADER_BYTES, packFile().length());
+        }
+    }
+
+    @Test
+    public void flushCompactsWhenReplacedLogosOutweighLiveOnes() throws IOException {
+        File directory = mFolder.getRoot();
+        try (LogoPack pack = LogoPack.open(directory, 10000)) {
+            pack.put(1, logo(1, 100));
+            pack.put(2, logo(2, 100));
+            pack.put(1, logo(11, 100));
+            pack.put(1, logo(21, 100));
+            pack.flush();
+            // 200 bytes olvidados contra 200 vigentes: todavía no compacta
+            assertEquals(HEADER_BYTES + 400, packFile().length());
+
+            pack.put(1, logo(31, 100));
+            pack.flush();
+            assertEquals(HEADER_BYTES + 200, packFile().length());
+            assertArrayEquals(logo(31, 100), pack.get(1));
+            assertArrayEquals(logo(2, 100), pack.get(2));
+        }
+
+        try (LogoPack pack = LogoPack.open(directory, 10000)) {
+            assertEquals(2, pack.size());
+            assertArrayEquals(logo(31, 100), pack.get(1));
+            assertArrayEquals(logo(2, 100), pack.get(2));
+        }
+    }
+
+    @Test
+    public void readsDoNotRewriteTheIndexUntilClose() throws IOException {
+        File directory = mFolder.getRoot();
+        try (LogoPack pack = LogoPack.open(directory, 300)) {
+            pack.put(1, logo(1, 100));
+            pack.put(2, logo(2, 100));
+            pack.put(3, logo(3, 100));
+            pack.flush();
+            byte[] index = Files.readAllBytes(indexFile().toPath());
+
+            // Cambia el orden de uso (el 1 pasa al final) sin cambiar los logos
+            pack.get(1);
+            pack.flush();
+            assertArrayEquals(index, Files.readAllBytes(indexFile().toPath()));
+        }
+
+        // Al cerrar se guardó el orden: al llenarse se olvida primero el 2 y no el 1
+        try (LogoPack pack = LogoPack.open(directory, 300)) {
+            pack.put(4, logo(4, 100));
+
+            assertTrue(pack.contains(1));
+            assertFalse(pack.contains(2));
+        }
+    }
+
+    @Test
+    public void packFromAnotherGenerationIsDiscarded() throws IOException {
+        File directory = mFolder.getRoot();
+        try (LogoPack pack = LogoPack.open(directory, 1000)) {
+            pack.put(1, logo(1, 100));
+        }
+        // Como si la app se cortara entre el renombre del paquete y el del índice
+        try (RandomAccessFile index = new RandomAccessFile(indexFile(), "rw")) {
+            index.seek(8);
+            long generation = index.readLong();
+            index.seek(8);
+            index.writeLong(generation - 1);
+        }
+
+        try (LogoPack pack = LogoPack.open(directory, 1000)) {
+            assertEquals(0, pack.size());
+            assertNull(pack.get(1));
+            assertEquals(HEADER_BYTES, packFile().length());
+        }
+    }
+
+    @Test
+    public void truncatedIndexStartsAnEmptyPack() throws IOException {
+        File directory = mFolder.getRoot();
+        try (LogoPack pack = LogoPack.open(directory, 1000)) {
+            pack.put(1, logo(1, 100));
+            pack.put(2, logo(2, 100));
+        }
+        byte[] index = Files.readAllBytes(indexFile().toPath());
+        Files.write(indexFile().toPath(), Arrays.copyOf(index, index.length - 6));
+
+        try (LogoPack pack = LogoPack.open(directory, 1000)) {
+            assertEquals(0, pack.size());
+            assertEquals(0, pack.sizeInBytes());
+        }
+    }
+
+    private File packFile() {
+        return new File(mFolder.getRoot(), LogoPack.PACK_NAME);
+    }
+
+    private File indexFile() {
+        return new File(mFolder.getRoot(), LogoPack.INDEX_NAME);
+    }
+
+    private static byte[] logo(int seed, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (seed * 31 + i);
+        }
+        return data;
+    }
+}
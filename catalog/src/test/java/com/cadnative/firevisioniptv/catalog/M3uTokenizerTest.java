@@ -0,0 +1,220 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class M3uTokenizerTest {
+
+    // Copia de una entrada: el tokenizador reutiliza su M3uEntry
+    private static final class Parsed {
+        final String channelId;
+        final String name;
+        final String logo;
+        final String group;
+        final String url;
+        final String drmType;
+        final String drmKey;
+        final byte[] attributes;
+
+        Parsed(M3uEntry entry) {
+            channelId = entry.getChannelId();
+            name = entry.getName();
+            logo = entry.getLogo();
+            group = entry.getGroup();
+            url = entry.getUrl();
+            drmType = entry.getDrmType();
+            drmKey = entry.getDrmKey();
+            attributes = entry.getAttributes();
+        }
+
+        String attribute(String key) {
+            return M3uAttributes.get(attributes, key);
+        }
+
+        @Override
+        public String toString() {
+            return channelId + '|' + name + '|' + logo + '|' + group + '|' + url + '|' + drmType + '|'
+                    + drmKey + '|' + (attributes == null ? null : new String(attributes, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void readsKnownAttributesAndName() {
+        List<Parsed> entries = parse("#EXTM3U\n"
+                + "#EXTINF:-1 tvg-id=\"dw.de\" tvg-logo=\"http://logo/dw.png\" group-title=\"News\",DW Español\n"
+                + "http://example.com/dw.m3u8\n");
+
+        assertEquals(1, entries.size());
+        Parsed dw = entries.get(0);
+        assertEquals("dw.de", dw.channelId);
+        assertEquals("DW Español", dw.name);
+        assertEquals("http://logo/dw.png", dw.logo);
+        assertEquals("News", dw.group);
+        assertEquals("http://example.com/dw.m3u8", dw.url);
+        assertNull(dw.attributes);
+    }
+
+    @Test
+    public void quotedValuesMayContainCommasAndEquals() {
+        List<Parsed> entries = parse(
+                "#EXTINF:-1 group-title=\"News, Sports\" tvg-logo=\"http://logo/a.png?w=1&h=2\" tvg-chno=\"7,1\",Canal, Uno\n"
+                + "https://example.com/a\n");
+
+        Parsed entry = entries.get(0);
+        assertEquals("News, Sports", entry.group);
+        assertEquals("http://logo/a.png?w=1&h=2", entry.logo);
+        assertEquals("7,1", entry.attribute(M3uAttributes.TVG_CHNO));
+        // Solo la primera coma fuera de comillas separa el nombre
+        assertEquals("Canal, Uno", entry.name);
+    }
+
+    @Test
+    public void optionsBeforeExtInfBelongToTheNextEntry() {
+        List<Parsed> entries = parse("#EXTM3U\n"
+                + "#EXTINF:-1,Abierto\n"
+                + "http://example.com/open\n"
+                + "#KODIPROP:inputstream.adaptive.license_type=clearkey\n"
+                + "#KODIPROP:inputstream.adaptive.license_key=abc:123\n"
+                + "#EXTVLCOPT:http-user-agent=Kodi\n"
+                + "#EXTINF:-1 tvg-id=\"drm\",Con DRM\n"
+                + "#EXTVLCOPT:http-referrer=https://example.com/\n"
+                + "http://example.com/drm.mpd\n");
+
+        assertEquals(2, entries.size());
+        Parsed open = entries.get(0);
+        assertNull(open.drmType);
+        assertNull(open.attributes);
+
+        Parsed drm = entries.get(1);
+        assertEquals("clearkey", drm.drmType);
+        assertEquals("abc:123", drm.drmKey);
+        assertEquals("Kodi", drm.attribute(M3uAttributes.HTTP_USER_AGENT));
+        assertEquals("https://example.com/", drm.attribute(M3uAttributes.HTTP_REFERRER));
+    }
+
+    @Test
+    public void crlfLineEndingsAreTrimmed() {
+        List<Parsed> entries = parse("#EXTM3U\r\n"
+                + "#EXTINF:-1 tvg-id=\"a\" group-title=\"Kids\",Canal A\r\n"
+                + "#EXTVLCOPT:http-user-agent=VLC\r\n"
+                + "http://example.com/a\r\n");
+
+        Parsed entry = entries.get(0);
+        assertEquals("Canal A", entry.name);
+        assertEquals("Kids", entry.group);
+        assertEquals("http://example.com/a", entry.url);
+        assertEquals("VLC", entry.attribute(M3uAttributes.HTTP_USER_AGENT));
+    }
+
+    @Test
+    public void byteOrderMarkIsSkipped() {
+        List<Parsed> entries = parse("\uFEFF#EXTINF:-1 tvg-id=\"a\",Canal A\nhttp://example.com/a\n");
+
+        assertEquals(1, entries.size());
+        assertEquals("a", entries.get(0).channelId);
+    }
+
+    @Test
+    public void lastLineWithoutNewlineIsRead() {
+        List<Parsed> entries = parse("#EXTINF:-1,Canal A\nhttp://example.com/a\n#EXTINF:-1,Canal B\nhttp://example.com/b");
+
+        assertEquals(2, entries.size());
+        assertEquals("http://example.com/b", entries.get(1).url);
+    }
+
+    @Test
+    public void emptyAttributesAreNull() {
+        List<Parsed> entries = parse(
+                "#EXTINF:-1 tvg-id=\"\" tvg-logo=\"\" group-title=\"\" tvg-shift tvg-chno=\"\",Canal A\n"
+                + "http://example.com/a\n");
+
+        Parsed entry = entries.get(0);
+        assertNull(entry.channelId);
+        assertNull(entry.logo);
+        assertNull(entry.group);
+        // Un atributo con valor vacío se conserva; uno sin '=' se ignora
+        assertEquals("", entry.attribute(M3uAttributes.TVG_CHNO));
+        assertNull(entry.attribute("tvg-shift"));
+    }
+
+    @Test
+    public void nameFallsBackToTvgNameAndThenToEmpty() {
+        List<Parsed> entries = parse("#EXTINF:-1 tvg-name=\"Canal A\",\n"
+                + "http://example.com/a\n"
+                + "#EXTINF:-1 tvg-id=\"b\"\n"
+                + "http://example.com/b\n");
+
+        assertEquals("Canal A", entries.get(0).name);
+        assertEquals("", entries.get(1).name);
+    }
+
+    @Test
+    public void entriesWithoutUrlOrExtInfAreDropped() {
+        List<Parsed> entries = parse("#EXTINF:-1,Sin URL\n"
+                + "#EXTINF:-1,Canal A\n"
+                + "http://example.com/a\n"
+                + "#KODIPROP:inputstream.adaptive.license_type=widevine\n"
+                + "http://example.com/suelta\n"
+                + "#EXTINF:-1,Canal B\n"
+                + "not-a-url\n"
+                + "http://example.com/b\n");
+
+        assertEquals(2, entries.size());
+        assertEquals("Canal A", entries.get(0).name);
+        assertEquals("Canal B", entries.get(1).name);
+        // La licencia era de la URL suelta y se descartó con ella
+        assertNull(entries.get(1).drmType);
+    }
+
+    @Test
+    public void streamReadsLinesLongerThanTheBuffer() {
+        char[] name = new char[200 * 1024];
+        Arrays.fill(name, 'x');
+        List<Parsed> entries = parse("#EXTINF:-1," + new String(name) + "\nhttp://example.com/a\n");
+
+        assertEquals(1, entries.size());
+        assertEquals(name.length, entries.get(0).name.length());
+    }
+
+    /**
+     * Parsea el texto desde un stream y desde un buffer directo (como un archivo mapeado)
+     * y comprueba que ambos caminos dan lo mismo.
+     */
+    private static List<Parsed> parse(String playlist) {
+        byte[] bytes = playlist.getBytes(StandardCharsets.UTF_8);
+
+        List<Parsed> fromStream = new ArrayList<>();
+        try {
+            new M3uTokenizer(collector(fromStream)).parse(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        List<Parsed> fromBuffer = new ArrayList<>();
+        new M3uTokenizer(collector(fromBuffer)).parse(direct, 0, bytes.length);
+
+        assertEquals(fromStream.toString(), fromBuffer.toString());
+        return fromStream;
+    }
+
+    private static M3uTokenizer.Listener collector(final List<Parsed> entries) {
+        return new M3uTokenizer.Listener() {
+            @Override
+            public void onEntry(M3uEntry entry) {
+                entries.add(new Parsed(entry));
+            }
+        };
+    }
+}
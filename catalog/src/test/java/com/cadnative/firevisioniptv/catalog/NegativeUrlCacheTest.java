@@ -0,0 +1,170 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Esperas y persistencia de NegativeUrlCache. El reloj es el {@code now} de cada llamada,
+ * así que el test lo avanza a mano en lugar de esperar.
+ */
+public class NegativeUrlCacheTest {
+
+    // Los mismos valores que usa FailedImageUrls
+    private static final long BASE_TTL = TimeUnit.HOURS.toMillis(1);
+    private static final long MAX_TTL = TimeUnit.DAYS.toMillis(7);
+
+    private static final long URL_A = NegativeUrlCache.keyOf("http://example.com/a.png");
+    private static final long URL_B = NegativeUrlCache.keyOf("http://example.com/b.png");
+    private static final long URL_C = NegativeUrlCache.keyOf("http://example.com/c.png");
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    // Reloj del test
+    private long mNow = TimeUnit.DAYS.toMillis(20000);
+
+    @Test
+    public void failureBlocksForTheBaseTtl() {
+        NegativeUrlCache cache = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        assertFalse(cache.isBlocked(URL_A, mNow));
+
+        assertEquals(mNow + BASE_TTL, cache.recordFailure(URL_A, mNow));
+        assertTrue(cache.isBlocked(URL_A, mNow + BASE_TTL - 1));
+        assertFalse(cache.isBlocked(URL_A, mNow + BASE_TTL));
+        assertFalse(cache.isBlocked(URL_B, mNow));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void consecutiveFailuresDoubleTheWait() {
+        NegativeUrlCache cache = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        long ttl = BASE_TTL;
+        for (int failure = 1; failure <= 5; failure++) {
+            long retryAt = cache.recordFailure(URL_A, mNow);
+            assertEquals("failure " + failure, mNow + ttl, retryAt);
+            mNow = retryAt;
+            ttl *= 2;
+        }
+    }
+
+    @Test
+    public void waitIsCappedAtSevenDays() {
+        NegativeUrlCache cache = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        // 2^8 horas ya pasa de 7 días; muchas más fallas no deben desbordar la espera
+        for (int failure = 1; failure <= 100; failure++) {
+            long retryAt = cache.recordFailure(URL_A, mNow);
+            if (failure >= 9) {
+                assertEquals("failure " + failure, mNow + MAX_TTL, retryAt);
+            } else {
+                assertTrue("failure " + failure, retryAt - mNow < MAX_TTL);
+            }
+            mNow = retryAt;
+        }
+    }
+
+    @Test
+    public void successUnblocksAndRestartsTheBackoff() {
+        NegativeUrlCache cache = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        cache.recordFailure(URL_A, mNow);
+        cache.recordFailure(URL_A, mNow);
+
+        cache.recordSuccess(URL_A);
+        assertFalse(cache.isBlocked(URL_A, mNow));
+        assertEquals(0, cache.size());
+        assertEquals(mNow + BASE_TTL, cache.recordFailure(URL_A, mNow));
+    }
+
+    @Test
+    public void writtenFailuresAreReadBack() throws IOException {
+        File file = new File(mFolder.getRoot(), "failed_urls.bin");
+        NegativeUrlCache written = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        written.recordFailure(URL_A, mNow);
+        written.recordFailure(URL_A, mNow);
+        assertTrue(written.isDirty());
+        written.writeTo(file, mNow);
+        assertFalse(written.isDirty());
+
+        NegativeUrlCache read = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        read.readFrom(file);
+        assertFalse(read.isDirty());
+        assertTrue(read.isBlocked(URL_A, mNow + 2 * BASE_TTL - 1));
+        assertFalse(read.isBlocked(URL_A, mNow + 2 * BASE_TTL));
+        // La próxima falla sigue la secuencia guardada: 4 horas
+        assertEquals(mNow + 4 * BASE_TTL, read.recordFailure(URL_A, mNow));
+    }
+
+    @Test
+    public void readingMergesWithFailuresRecordedMeanwhile() throws IOException {
+        File file = new File(mFolder.getRoot(), "failed_urls.bin");
+        NegativeUrlCache stored = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        for (int i = 0; i < 3; i++) {
+            stored.recordFailure(URL_A, mNow);     // 3 fallas: 4 horas
+        }
+        stored.recordFailure(URL_B, mNow);
+        stored.recordFailure(URL_C, mNow);
+        stored.writeTo(file, mNow);
+
+        // Mientras se abría el archivo: A falló una vez más tarde, B cargó bien, C no se vio
+        NegativeUrlCache cache = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        long later = mNow + TimeUnit.HOURS.toMillis(5);
+        cache.recordFailure(URL_A, later);
+        cache.recordFailure(URL_B, mNow);
+        cache.recordSuccess(URL_B);
+        cache.readFrom(file);
+
+        // A queda con las 3 fallas guardadas y la espera más larga (la registrada después)
+        assertTrue(cache.isBlocked(URL_A, later + BASE_TTL - 1));
+        assertFalse(cache.isBlocked(URL_A, later + BASE_TTL));
+        assertEquals(later + 8 * BASE_TTL, cache.recordFailure(URL_A, later));
+        assertFalse(cache.isBlocked(URL_B, mNow));
+        assertTrue(cache.isBlocked(URL_C, mNow));
+        // Lo registrado antes de leer sigue pendiente de guardar
+        assertTrue(cache.isDirty());
+    }
+
+    @Test
+    public void writeDropsFailuresExpiredForLongerThanTheMaximum() throws IOException {
+        File file = new File(mFolder.getRoot(), "failed_urls.bin");
+        NegativeUrlCache cache = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        cache.recordFailure(URL_A, mNow);
+        cache.recordFailure(URL_B, mNow + MAX_TTL);
+        cache.recordFailure(URL_C, mNow);
+        cache.recordSuccess(URL_C);
+
+        cache.writeTo(file, mNow + BASE_TTL + MAX_TTL);
+
+        NegativeUrlCache read = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        read.readFrom(file);
+        assertEquals(1, read.size());
+        assertTrue(read.isBlocked(URL_B, mNow + MAX_TTL));
+        // A volvió a empezar con la espera base
+        assertEquals(mNow + BASE_TTL, read.recordFailure(URL_A, mNow));
+    }
+
+    @Test
+    public void missingFileIsIgnoredAndForeignFileRejected() throws IOException {
+        NegativeUrlCache cache = new NegativeUrlCache(BASE_TTL, MAX_TTL);
+        cache.readFrom(new File(mFolder.getRoot(), "missing.bin"));
+        assertEquals(0, cache.size());
+
+        File foreign = mFolder.newFile("foreign.bin");
+        Files.write(foreign.toPath(), new byte[] {'#', 'E', 'X', 'T', 'M', '3', 'U', '\n'});
+        try {
+            cache.readFrom(foreign);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Not a negative URL cache"));
+        }
+    }
+}
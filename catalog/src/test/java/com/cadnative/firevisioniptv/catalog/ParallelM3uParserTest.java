@@ -0,0 +1,199 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * El parser paralelo debe dar exactamente lo mismo que el tokenizador de un hilo, en el mismo
+ * orden, sin importar dónde caigan los cortes entre trozos.
+ */
+public class ParallelM3uParserTest {
+
+    private final ForkJoinPool mPool = new ForkJoinPool(4);
+
+    // Describe la entrada entera, así cualquier campo mal asignado cambia el resultado
+    private static final ParallelM3uParser.EntryMapper<String> DESCRIBE = new ParallelM3uParser.EntryMapper<String>() {
+        @Override
+        public String map(M3uEntry entry) {
+            return describe(entry);
+        }
+    };
+
+    @After
+    public void shutDown() {
+        mPool.shutdownNow();
+    }
+
+    @Test
+    public void matchesSequentialTokenizerForAnyChunkSize() {
+        ByteBuffer playlist = playlist(300);
+        List<String> expected = sequential(playlist);
+        assertEquals(300, expected.size());
+
+        for (int chunkBytes : new int[] {1, 7, 64, 333, 4096, playlist.limit()}) {
+            assertEquals("chunkBytes=" + chunkBytes, expected, parallel(playlist, chunkBytes, DESCRIBE));
+        }
+    }
+
+    @Test
+    public void matchesSequentialTokenizerOnADirectBuffer() {
+        ByteBuffer heap = playlist(120);
+        ByteBuffer direct = ByteBuffer.allocateDirect(heap.limit());
+        direct.put(heap.duplicate());
+
+        assertEquals(sequential(heap), parallel(direct, 50, DESCRIBE));
+    }
+
+    @Test
+    public void chunksStartRightAfterAUrlLine() {
+        ByteBuffer playlist = playlist(100);
+        List<int[]> chunks = new ParallelM3uParser<>(mPool, DESCRIBE, 100).split(playlist, 0, playlist.limit());
+
+        assertTrue(chunks.size() > 10);
+        assertEquals(0, chunks.get(0)[0]);
+        assertEquals(playlist.limit(), chunks.get(chunks.size() - 1)[1]);
+        for (int i = 1; i < chunks.size(); i++) {
+            int boundary = chunks.get(i)[0];
+            assertEquals(chunks.get(i - 1)[1], boundary);
+            int lineStart = boundary - 1;
+            while (lineStart > 0 && playlist.get(lineStart - 1) != '\n') {
+                lineStart--;
+            }
+            assertTrue("chunk " + i, M3uTokenizer.isUrlLine(playlist, lineStart, boundary - 1));
+        }
+    }
+
+    @Test
+    public void deliversChunksInOrderOnTheCallingThreadEvenIfLaterOnesFinishFirst() {
+        ByteBuffer playlist = playlist(200);
+        final Thread caller = Thread.currentThread();
+        final List<List<String>> chunks = new ArrayList<>();
+
+        // Las primeras entradas tardan, así los trozos siguientes terminan antes
+        new ParallelM3uParser<>(mPool, new ParallelM3uParser.EntryMapper<String>() {
+            @Override
+            public String map(M3uEntry entry) {
+                if (entry.getName().equals("Canal 0")) {
+                    sleep(100);
+                }
+                return describe(entry);
+            }
+        }, 256).parse(playlist, 0, playlist.limit(), new ParallelM3uParser.ChunkListener<String>() {
+            @Override
+            public void onChunk(List<String> entries) {
+                assertSame(caller, Thread.currentThread());
+                chunks.add(entries);
+            }
+        });
+
+        List<String> merged = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            merged.addAll(chunk);
+        }
+        assertTrue(chunks.size() > 1);
+        assertEquals(sequential(playlist), merged);
+    }
+
+    @Test
+    public void mapperFailureReachesTheCaller() {
+        ByteBuffer playlist = playlist(100);
+        try {
+            parallel(playlist, 64, new ParallelM3uParser.EntryMapper<String>() {
+                @Override
+                public String map(M3uEntry entry) {
+                    if (entry.getName().equals("Canal 50")) {
+                        throw new IllegalStateException("bad entry");
+                    }
+                    return describe(entry);
+                }
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("bad entry"));
+        }
+    }
+
+    /**
+     * Lista con los casos que complican los cortes: opciones antes y después del #EXTINF,
+     * CRLF, un "\n#EXTINF:" dentro de un valor entre comillas, entradas sin URL y URLs sueltas.
+     */
+    private static ByteBuffer playlist(int channels) {
+        StringBuilder builder = new StringBuilder("\uFEFF#EXTM3U\n");
+        for (int i = 0; i < channels; i++) {
+            switch (i % 6) {
+                case 0:
+                    builder.append("#KODIPROP:inputstream.adaptive.license_type=clearkey\n")
+                            .append("#KODIPROP:inputstream.adaptive.license_key=").append(i).append(":k\n");
+                    break;
+                case 1:
+                    builder.append("#EXTINF:-1,Sin URL ").append(i).append('\n');
+                    break;
+                case 2:
+                    builder.append("http://example.com/suelta/").append(i).append('\n');
+                    break;
+                default:
+                    break;
+            }
+            String group = i % 6 == 3 ? "Noticias\n#EXTINF:-1,Falso" : "G" + (i % 5) + ", Todos";
+            builder.append("#EXTINF:-1 tvg-id=\"c").append(i).append(".tv\" group-title=\"").append(group)
+                    .append("\" tvg-chno=\"").append(i).append("\",Canal ").append(i)
+                    .append(i % 4 == 0 ? "\r\n" : "\n");
+            if (i % 3 == 0) {
+                builder.append("#EXTVLCOPT:http-user-agent=Agente ").append(i).append('\n');
+            }
+            builder.append(i % 2 == 0 ? "http" : "https").append("://example.com/").append(i);
+            if (i < channels - 1) {
+                builder.append('\n');
+            }
+        }
+        return ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> sequential(ByteBuffer playlist) {
+        final List<String> entries = new ArrayList<>();
+        new M3uTokenizer(new M3uTokenizer.Listener() {
+            @Override
+            public void onEntry(M3uEntry entry) {
+                entries.add(describe(entry));
+            }
+        }).parse(playlist, 0, playlist.limit());
+        return entries;
+    }
+
+    private List<String> parallel(ByteBuffer playlist, int chunkBytes, ParallelM3uParser.EntryMapper<String> mapper) {
+        final List<String> entries = new ArrayList<>();
+        new ParallelM3uParser<>(mPool, mapper, chunkBytes).parse(playlist, 0, playlist.limit(),
+                new ParallelM3uParser.ChunkListener<String>() {
+                    @Override
+                    public void onChunk(List<String> chunk) {
+                        entries.addAll(chunk);
+                    }
+                });
+        return entries;
+    }
+
+    private static String describe(M3uEntry entry) {
+        return entry.getChannelId() + '|' + entry.getName() + '|' + entry.getGroup() + '|' + entry.getUrl() + '|'
+                + entry.getDrmType() + '|' + entry.getDrmKey() + '|' + Arrays.toString(entry.getAttributes());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
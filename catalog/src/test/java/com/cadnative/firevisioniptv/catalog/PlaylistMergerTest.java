@@ -0,0 +1,138 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PlaylistMergerTest {
+
+    // Canal mínimo: los duplicados dejan su URL como alternativa
+    private static final class TestChannel {
+        final String id;
+        final String name;
+        final String url;
+        final List<String> alternateUrls = new ArrayList<>();
+
+        TestChannel(String id, String name, String url) {
+            this.id = id;
+            this.name = name;
+            this.url = url;
+        }
+    }
+
+    private static final PlaylistMerger.Channels<TestChannel> CHANNELS = new PlaylistMerger.Channels<TestChannel>() {
+        @Override
+        public String channelId(TestChannel channel) {
+            return channel.id;
+        }
+
+        @Override
+        public String name(TestChannel channel) {
+            return channel.name;
+        }
+
+        @Override
+        public String url(TestChannel channel) {
+            return channel.url;
+        }
+
+        @Override
+        public void merge(TestChannel primary, TestChannel duplicate) {
+            primary.alternateUrls.add(duplicate.url);
+        }
+    };
+
+    @Test
+    public void sameUrlIsMergedIgnoringTrailingSlash() {
+        PlaylistMerger<TestChannel> merger = new PlaylistMerger<>(CHANNELS);
+        TestChannel first = new TestChannel("a", "Canal A", "http://example.com/live/");
+        TestChannel second = new TestChannel("b", "Otro nombre", "http://example.com/live");
+
+        assertTrue(merger.add(first));
+        assertFalse(merger.add(second));
+
+        assertEquals(Collections.singletonList(first), merger.getChannels());
+        assertEquals(Collections.singletonList("http://example.com/live"), first.alternateUrls);
+        assertEquals(1, merger.getDuplicateCount());
+    }
+
+    @Test
+    public void sameIdAndNormalizedNameIsMerged() {
+        PlaylistMerger<TestChannel> merger = new PlaylistMerger<>(CHANNELS);
+        TestChannel first = new TestChannel("DW.de", "DW Español", "http://a/1");
+        merger.add(first);
+
+        assertFalse(merger.add(new TestChannel(" dw.de ", "dw espanol", "http://b/1")));
+        assertEquals(1, merger.getChannels().size());
+        assertEquals(Collections.singletonList("http://b/1"), first.alternateUrls);
+    }
+
+    @Test
+    public void genericIdWithAnotherNameIsAnotherChannel() {
+        PlaylistMerger<TestChannel> merger = new PlaylistMerger<>(CHANNELS);
+
+        merger.add(new TestChannel("0000", "Noticias", "http://a/1"));
+        merger.add(new TestChannel("0000", "Deportes", "http://a/2"));
+
+        assertEquals(2, merger.getChannels().size());
+        assertEquals(0, merger.getDuplicateCount());
+    }
+
+    @Test
+    public void channelsWithoutIdAreComparedByName() {
+        PlaylistMerger<TestChannel> merger = new PlaylistMerger<>(CHANNELS);
+
+        merger.add(new TestChannel(null, "Canal Uno", "http://a/1"));
+        merger.add(new TestChannel("", "CANAL-UNO", "http://b/1"));
+        merger.add(new TestChannel("uno", "Canal Uno", "http://c/1"));
+
+        // El tercero tiene tvg-id, así que su identidad es otra
+        assertEquals(2, merger.getChannels().size());
+        assertEquals(1, merger.getDuplicateCount());
+    }
+
+    @Test
+    public void keepsOrderOfFirstAppearanceAcrossLists() {
+        PlaylistMerger<TestChannel> merger = new PlaylistMerger<>(CHANNELS);
+        TestChannel a = new TestChannel("a", "A", "http://a");
+        TestChannel b = new TestChannel("b", "B", "http://b");
+        TestChannel c = new TestChannel("c", "C", "http://c");
+
+        merger.addAll(Arrays.asList(a, b));
+        merger.addAll(Arrays.asList(new TestChannel("c2", "C", "http://b"), c, new TestChannel("a", "A", "http://a2")));
+
+        assertEquals(Arrays.asList(a, b, c), merger.getChannels());
+        assertEquals(Collections.singletonList("http://a2"), a.alternateUrls);
+        assertEquals(2, merger.getDuplicateCount());
+    }
+
+    @Test
+    public void duplicateKeysPointToThePrimary() {
+        PlaylistMerger<TestChannel> merger = new PlaylistMerger<>(CHANNELS);
+        TestChannel primary = new TestChannel("a", "A", "http://a/1");
+        merger.add(primary);
+        // Se une por nombre e id, y su URL queda asociada al original
+        merger.add(new TestChannel("a", "A", "http://a/2"));
+
+        merger.add(new TestChannel("z", "Z", "http://a/2"));
+
+        assertSame(primary, merger.getChannels().get(0));
+        assertEquals(Arrays.asList("http://a/2", "http://a/2"), primary.alternateUrls);
+    }
+
+    @Test
+    public void normalizeNameDropsAccentsCaseAndPunctuation() {
+        assertEquals("dwespanol", PlaylistMerger.normalizeName(" DW Español "));
+        assertNull(PlaylistMerger.normalizeName(" - "));
+        assertNull(PlaylistMerger.normalizeName(null));
+    }
+}
@@ -0,0 +1,174 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Peticiones condicionales y gzip de RemotePlaylistSource contra un servidor HTTP local.
+ */
+public class RemotePlaylistSourceTest {
+
+    private static final String PLAYLIST = "#EXTM3U\n#EXTINF:-1 tvg-id=\"a\",Canal A\nhttp://example.com/a\n";
+    private static final String ETAG = "\"v1\"";
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    private HttpServer mServer;
+    private String mUrl;
+
+    // Lo que responde el servidor y lo que recibió en la última petición
+    private volatile int mStatus = 200;
+    private volatile boolean mGzip;
+    private volatile String mReceivedIfNoneMatch;
+    private volatile String mReceivedAcceptEncoding;
+    private volatile int mRequests;
+
+    @Before
+    public void startServer() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/playlist.m3u", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mRequests++;
+                mReceivedIfNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                mReceivedAcceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (mStatus != 200) {
+                    exchange.sendResponseHeaders(mStatus, -1);
+                    exchange.close();
+                    return;
+                }
+                if (ETAG.equals(mReceivedIfNoneMatch)) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                byte[] body = PLAYLIST.getBytes(StandardCharsets.UTF_8);
+                if (mGzip) {
+                    body = gzip(body);
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        mServer.start();
+        mUrl = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/playlist.m3u";
+    }
+
+    @After
+    public void stopServer() {
+        mServer.stop(0);
+    }
+
+    @Test
+    public void firstFetchDownloadsWithoutValidators() throws IOException {
+        RemotePlaylistSource.Result result = source().fetch();
+
+        assertTrue(result.isModified());
+        assertEquals(PLAYLIST, read(result.getFile()));
+        assertNull(mReceivedIfNoneMatch);
+        assertEquals("gzip", mReceivedAcceptEncoding);
+    }
+
+    @Test
+    public void notModifiedKeepsLocalCopyWithoutRewritingIt() throws IOException {
+        File file = source().fetch().getFile();
+        // Fecha vieja a propósito: si el 304 reescribiera la copia, cambiaría
+        assertTrue(file.setLastModified(1000000000L));
+
+        RemotePlaylistSource.Result result = source().fetch();
+
+        assertEquals(ETAG, mReceivedIfNoneMatch);
+        assertFalse(result.isModified());
+        assertEquals(file, result.getFile());
+        assertEquals(1000000000L, file.lastModified());
+        assertEquals(PLAYLIST, read(file));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void gzipResponseIsDecompressed() throws IOException {
+        mGzip = true;
+
+        RemotePlaylistSource.Result result = source().fetch();
+
+        assertTrue(result.isModified());
+        assertArrayEquals(PLAYLIST.getBytes(StandardCharsets.UTF_8), Files.readAllBytes(result.getFile().toPath()));
+    }
+
+    @Test
+    public void serverErrorFallsBackToLocalCopy() throws IOException {
+        source().fetch();
+        mStatus = 500;
+
+        RemotePlaylistSource.Result result = source().fetch();
+
+        assertEquals(2, mRequests);
+        assertFalse(result.isModified());
+        assertEquals(PLAYLIST, read(result.getFile()));
+    }
+
+    @Test
+    public void serverErrorWithoutCopyFails() {
+        mStatus = 500;
+        try {
+            source().fetch();
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // Sin copia local no hay nada que devolver
+        }
+    }
+
+    @Test
+    public void copyOfAnotherUrlIsNotReused() throws IOException {
+        source().fetch();
+
+        // Otra URL usa otro archivo, así que no envía los validadores de la primera
+        new RemotePlaylistSource(mUrl + "?other", mFolder.getRoot()).fetch();
+
+        assertNull(mReceivedIfNoneMatch);
+    }
+
+    private RemotePlaylistSource source() {
+        return new RemotePlaylistSource(mUrl, mFolder.getRoot());
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
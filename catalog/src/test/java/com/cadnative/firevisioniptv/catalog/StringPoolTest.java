@@ -0,0 +1,62 @@
+package com.cadnative.firevisioniptv.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class StringPoolTest {
+
+    @Test
+    public void equalStringsShareOneEntry() {
+        StringPool pool = new StringPool();
+        int first = pool.intern("http://example.com");
+        int other = pool.intern("http://example.org");
+
+        assertEquals(first, pool.intern(new String("http://example.com")));
+        assertNotEquals(first, other);
+        assertEquals(2, pool.size());
+        assertEquals("http://example.org", pool.get(other));
+    }
+
+    @Test
+    public void nullIsNone() {
+        StringPool pool = new StringPool();
+
+        assertEquals(StringPool.NONE, pool.intern(null));
+        assertNull(pool.get(StringPool.NONE));
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void emptyAndNonAsciiStringsRoundTrip() {
+        StringPool pool = new StringPool();
+        int empty = pool.intern("");
+        int accented = pool.intern("Canal Ñandú");
+        int emoji = pool.intern("📺 TV");
+
+        assertEquals("", pool.get(empty));
+        assertEquals("Canal Ñandú", pool.get(accented));
+        assertEquals("📺 TV", pool.get(emoji));
+        assertEquals(accented, pool.intern("Canal Ñandú"));
+    }
+
+    @Test
+    public void growsPastItsInitialArraysAndKeepsEveryReference() {
+        // Supera los 4 KB de bytes, los 257 offsets y los 512 slots iniciales
+        StringPool pool = new StringPool();
+        int count = 5000;
+        int[] refs = new int[count];
+        for (int i = 0; i < count; i++) {
+            refs[i] = pool.intern("http://host-" + i + ".example.com");
+        }
+
+        assertEquals(count, pool.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("http://host-" + i + ".example.com", pool.get(refs[i]));
+            assertEquals(refs[i], pool.intern("http://host-" + i + ".example.com"));
+        }
+        assertEquals(count, pool.size());
+    }
+}